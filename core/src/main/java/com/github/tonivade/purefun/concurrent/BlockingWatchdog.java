@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.tonivade.purefun.Consumer1;
+
+/**
+ * <p>Finds tasks that block the threads of an executor, like a {@code Future.await()} or a blocking call
+ * inside an {@code IO.task} running in a pool meant for compute.</p>
+ *
+ * <p>Executors are registered with {@code monitor(name, executor)}, {@code Future.DEFAULT_EXECUTOR} and
+ * the pool of {@code IO} fibers are registered by default. While the watchdog is stopped a monitored
+ * executor only reads a volatile flag before delegating the task. When it's started, every task marks
+ * the thread as running, and the threads are sampled periodically. A thread that is running a task and
+ * stays in a blocked or waiting state for more than the threshold is reported once, with its stack, to
+ * the reporter.</p>
+ *
+ * <p>The shared timer only hands the sample to an executor, the sample and the reporter run there, so a slow
+ * reporter never delays the rest of the scheduled tasks. By default it's a thread of its own, not monitored.
+ * A sample is skipped if the previous one is still running.</p>
+ *
+ * <p>Only the states reported by the JVM are used, so a thread blocked in a native call, like a socket read,
+ * is seen as {@code RUNNABLE} and it's not reported.</p>
+ */
+public final class BlockingWatchdog {
+
+  private static final long MIN_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final Set<Worker> WORKERS = ConcurrentHashMap.newKeySet();
+  private static final ThreadLocal<Worker> WORKER = ThreadLocal.withInitial(BlockingWatchdog::register);
+
+  private static final Executor SAMPLER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "purefun-watchdog");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static final AtomicBoolean SAMPLING = new AtomicBoolean();
+
+  private static volatile boolean enabled = false;
+  private static ScheduledFuture<?> sampler;
+
+  private BlockingWatchdog() { }
+
+  public static Executor monitor(String name, Executor executor) {
+    return new Monitored(requireNonNull(name), requireNonNull(executor));
+  }
+
+  /**
+   * Starts sampling the threads of the monitored executors, if it was already started
+   * it's restarted with the new threshold and reporter.
+   *
+   * @param threshold time a task can block a thread before being reported
+   * @param reporter receives the tasks that blocked a thread for too long
+   */
+  public static void start(Duration threshold, Consumer1<Report> reporter) {
+    start(threshold, reporter, SAMPLER);
+  }
+
+  /**
+   * @param threshold time a task can block a thread before being reported
+   * @param reporter receives the tasks that blocked a thread for too long
+   * @param executor where the threads are sampled and the reporter is called
+   */
+  public static synchronized void start(Duration threshold, Consumer1<Report> reporter, Executor executor) {
+    requireNonNull(reporter);
+    requireNonNull(executor);
+    long nanos = threshold.toNanos();
+    long period = Math.max(nanos / 2, MIN_PERIOD);
+    stop();
+    enabled = true;
+    sampler = Future.DEFAULT_SCHEDULER.scheduleAtFixedRate(
+        () -> dispatch(executor, () -> sample(nanos, reporter)), period, period, TimeUnit.NANOSECONDS);
+  }
+
+  public static synchronized void stop() {
+    enabled = false;
+    if (sampler != null) {
+      sampler.cancel(false);
+      sampler = null;
+    }
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  private static Worker register() {
+    Worker worker = new Worker(Thread.currentThread());
+    WORKERS.add(worker);
+    return worker;
+  }
+
+  private static void run(String name, Runnable task) {
+    Worker worker = WORKER.get();
+    String previousName = worker.executor;
+    long previous = worker.running;
+    worker.executor = name;
+    worker.running = ++worker.sequence;
+    try {
+      task.run();
+    } finally {
+      worker.executor = previousName;
+      worker.running = previous;
+    }
+  }
+
+  private static void dispatch(Executor executor, Runnable sample) {
+    if (!SAMPLING.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          sample.run();
+        } finally {
+          SAMPLING.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      SAMPLING.set(false);
+    }
+  }
+
+  private static void sample(long threshold, Consumer1<Report> reporter) {
+    long now = System.nanoTime();
+    Iterator<Worker> iterator = WORKERS.iterator();
+    while (iterator.hasNext()) {
+      Worker worker = iterator.next();
+      if (!worker.thread.isAlive()) {
+        iterator.remove();
+        continue;
+      }
+      long running = worker.running;
+      if (running == 0 || !isBlocking(worker.thread.getState())) {
+        worker.blockedSince = 0;
+        continue;
+      }
+      if (running != worker.sampled || worker.blockedSince == 0) {
+        worker.sampled = running;
+        worker.blockedSince = now;
+        worker.reported = false;
+        continue;
+      }
+      if (!worker.reported && now - worker.blockedSince >= threshold) {
+        worker.reported = true;
+        Report report = new Report(worker.executor, worker.thread.getName(),
+            Duration.ofNanos(now - worker.blockedSince), worker.thread.getStackTrace());
+        try {
+          reporter.run(report);
+        } catch (Throwable e) {
+          // the sampler must keep running
+        }
+      }
+    }
+  }
+
+  private static boolean isBlocking(Thread.State state) {
+    return state == Thread.State.BLOCKED || state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+  }
+
+  public static final class Report {
+
+    private final String executor;
+    private final String thread;
+    private final Duration blockedTime;
+    private final StackTraceElement[] stackTrace;
+
+    private Report(String executor, String thread, Duration blockedTime, StackTraceElement[] stackTrace) {
+      this.executor = executor;
+      this.thread = thread;
+      this.blockedTime = blockedTime;
+      this.stackTrace = stackTrace;
+    }
+
+    public String executor() {
+      return executor;
+    }
+
+    public String thread() {
+      return thread;
+    }
+
+    /**
+     * @return time the thread has been blocked, at least, when it was sampled
+     */
+    public Duration blockedTime() {
+      return blockedTime;
+    }
+
+    public StackTraceElement[] stackTrace() {
+      return stackTrace.clone();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder()
+          .append("thread ").append(thread).append(" of ").append(executor)
+          .append(" blocked for ").append(blockedTime);
+      for (StackTraceElement element : stackTrace) {
+        builder.append(System.lineSeparator()).append("\tat ").append(element);
+      }
+      return builder.toString();
+    }
+  }
+
+  private static final class Monitored implements Executor {
+
+    private final String name;
+    private final Executor executor;
+
+    private Monitored(String name, Executor executor) {
+      this.name = name;
+      this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      if (enabled) {
+        executor.execute(() -> run(name, task));
+      } else {
+        executor.execute(task);
+      }
+    }
+  }
+
+  /**
+   * Only the owner thread updates the running task, and only the sampler updates the rest, there's never
+   * more than one sample running.
+   */
+  private static final class Worker {
+
+    private final Thread thread;
+    private volatile String executor;
+    private volatile long running;
+    private long sequence;
+
+    private long sampled;
+    private long blockedSince;
+    private boolean reported;
+
+    private Worker(Thread thread) {
+      this.thread = thread;
+    }
+  }
+}
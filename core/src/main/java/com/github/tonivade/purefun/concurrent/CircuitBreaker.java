@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.tonivade.purefun.type.Option;
+
+/**
+ * <p>Stops calling a service that is failing or too slow, so the callers fail fast instead of waiting for it.</p>
+ *
+ * <p>While it's {@code CLOSED} every call is allowed, and the result of the last {@code windowSize} calls is
+ * kept in a sliding window. When there are at least {@code minimumCalls} in the window and the rate of failures,
+ * or the rate of calls slower than {@code slowCallDuration}, reaches its threshold, the breaker trips to
+ * {@code OPEN}, and all the calls are rejected with {@link OpenException} without calling the service. After
+ * {@code openTimeout} it's {@code HALF_OPEN}, only {@code halfOpenCalls} probes are allowed, if all of them
+ * succeed it's {@code CLOSED} again with an empty window, otherwise it's {@code OPEN} again. If the probes
+ * haven't reported its result after another {@code openTimeout}, it's {@code OPEN} again too, so a lost probe
+ * doesn't leave the breaker rejecting every call forever.</p>
+ *
+ * <p>The state is kept in atomics, no locks are used. A rejection only reads the current state and the clock,
+ * and the exception is shared and has no stack trace, so rejecting a call is almost free.</p>
+ *
+ * <p>It's used with {@code Future.protect(breaker, producer)}, {@code IO.protect(breaker)}
+ * or {@code ZIO.protect(breaker, zio)}, or directly, acquiring a permit before the call and reporting
+ * the result to the permit after the call. A {@link Call} started from the permit reports a failure when
+ * it's closed without a result, that's what the effects do when they are cancelled.</p>
+ */
+public final class CircuitBreaker {
+
+  public enum Status {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private static final int RECORDED = 1;
+  private static final int FAILURE = 2;
+  private static final int SLOW = 4;
+
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long slowCallDuration;
+  private final double slowCallRateThreshold;
+  private final long openTimeout;
+  private final int halfOpenCalls;
+
+  private final AtomicReference<Permit> current;
+
+  private CircuitBreaker(Builder builder) {
+    this.windowSize = builder.windowSize;
+    this.minimumCalls = builder.minimumCalls;
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallDuration = builder.slowCallDuration;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.openTimeout = builder.openTimeout;
+    this.halfOpenCalls = builder.halfOpenCalls;
+    this.current = new AtomicReference<>(new Permit(Status.CLOSED, 0));
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return a permit to call the service, or none if the call has to be rejected
+   */
+  public Option<Permit> tryAcquire() {
+    while (true) {
+      Permit permit = current.get();
+      switch (permit.status) {
+        case CLOSED:
+          return permit.some;
+        case OPEN:
+          long now = System.nanoTime();
+          if (now - permit.since < openTimeout) {
+            return Option.none();
+          }
+          current.compareAndSet(permit, new Permit(Status.HALF_OPEN, now));
+          break;
+        case HALF_OPEN:
+          if (permit.remaining.getAndDecrement() > 0) {
+            return permit.some;
+          }
+          if (System.nanoTime() - permit.since >= openTimeout) {
+            current.compareAndSet(permit, new Permit(Status.OPEN, System.nanoTime()));
+          }
+          return Option.none();
+        default:
+          throw new IllegalStateException("unknown status: " + permit.status);
+      }
+    }
+  }
+
+  public Status status() {
+    return current.get().status;
+  }
+
+  /**
+   * @return rate of failures in the current window, it's zero if the breaker is not closed
+   */
+  public double failureRate() {
+    return current.get().rate(FAILURE);
+  }
+
+  /**
+   * @return rate of slow calls in the current window, it's zero if the breaker is not closed
+   */
+  public double slowCallRate() {
+    return current.get().rate(SLOW);
+  }
+
+  /**
+   * <p>Permission to do a call while the breaker is in a given state. The same permit is shared by all
+   * the calls allowed in the same state, results reported to a permit of a previous state are ignored.</p>
+   */
+  public final class Permit {
+
+    private final Status status;
+    private final long since;
+    private final Option<Permit> some = Option.some(this);
+
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong index;
+    private final AtomicInteger calls;
+    private final AtomicInteger failures;
+    private final AtomicInteger slows;
+
+    private final AtomicInteger remaining;
+    private final AtomicInteger succeeded;
+
+    private Permit(Status status, long since) {
+      this.status = status;
+      this.since = since;
+      boolean closed = status == Status.CLOSED;
+      this.outcomes = closed ? new AtomicIntegerArray(windowSize) : null;
+      this.index = closed ? new AtomicLong() : null;
+      this.calls = closed ? new AtomicInteger() : null;
+      this.failures = closed ? new AtomicInteger() : null;
+      this.slows = closed ? new AtomicInteger() : null;
+      boolean halfOpen = status == Status.HALF_OPEN;
+      this.remaining = halfOpen ? new AtomicInteger(halfOpenCalls) : null;
+      this.succeeded = halfOpen ? new AtomicInteger() : null;
+    }
+
+    public void onSuccess(Duration elapsed) {
+      record(elapsed.toNanos() >= slowCallDuration ? SLOW : 0);
+    }
+
+    public void onFailure(Duration elapsed) {
+      record(FAILURE | (elapsed.toNanos() >= slowCallDuration ? SLOW : 0));
+    }
+
+    /**
+     * @return a call that measures the time elapsed from now
+     */
+    public Call start() {
+      return new Call(this);
+    }
+
+    private void record(int outcome) {
+      if (current.get() != this) {
+        return;
+      }
+      if (status == Status.CLOSED) {
+        recordClosed(outcome);
+      } else if (status == Status.HALF_OPEN) {
+        recordHalfOpen(outcome);
+      }
+    }
+
+    private void recordClosed(int outcome) {
+      int slot = (int) (index.getAndIncrement() % windowSize);
+      int previous = outcomes.getAndSet(slot, outcome | RECORDED);
+      int total = previous == 0 ? calls.incrementAndGet() : calls.get();
+      int failed = failures.addAndGet(flag(outcome, FAILURE) - flag(previous, FAILURE));
+      int slow = slows.addAndGet(flag(outcome, SLOW) - flag(previous, SLOW));
+      if (total >= minimumCalls
+          && (failed >= failureRateThreshold * total || slow >= slowCallRateThreshold * total)) {
+        current.compareAndSet(this, new Permit(Status.OPEN, System.nanoTime()));
+      }
+    }
+
+    private void recordHalfOpen(int outcome) {
+      if (outcome != 0) {
+        current.compareAndSet(this, new Permit(Status.OPEN, System.nanoTime()));
+      } else if (succeeded.incrementAndGet() >= halfOpenCalls) {
+        current.compareAndSet(this, new Permit(Status.CLOSED, 0));
+      }
+    }
+
+    private double rate(int flag) {
+      if (status != Status.CLOSED) {
+        return 0;
+      }
+      int total = calls.get();
+      if (total == 0) {
+        return 0;
+      }
+      return (double) (flag == FAILURE ? failures.get() : slows.get()) / total;
+    }
+
+    private int flag(int outcome, int flag) {
+      return (outcome & flag) != 0 ? 1 : 0;
+    }
+  }
+
+  /**
+   * <p>A single call done with a permit. Only the first result is reported, and closing the call reports
+   * a failure if there was no result, so a call cancelled, or that ends with an exception that is not seen
+   * by the caller, still counts, and a probe never keeps the breaker half open.</p>
+   */
+  public static final class Call implements AutoCloseable {
+
+    private final Permit permit;
+    private final long start = System.nanoTime();
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    private Call(Permit permit) {
+      this.permit = permit;
+    }
+
+    public void onSuccess() {
+      if (reported.compareAndSet(false, true)) {
+        permit.onSuccess(elapsed());
+      }
+    }
+
+    public void onFailure() {
+      if (reported.compareAndSet(false, true)) {
+        permit.onFailure(elapsed());
+      }
+    }
+
+    @Override
+    public void close() {
+      onFailure();
+    }
+
+    private Duration elapsed() {
+      return Duration.ofNanos(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * <p>Error of the calls rejected while the breaker is open. There's a single instance without stack trace,
+   * so the rejection doesn't allocate anything.</p>
+   */
+  public static final class OpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final OpenException INSTANCE = new OpenException();
+
+    private OpenException() {
+      super("circuit breaker is open", null, false, false);
+    }
+  }
+
+  public static final class Builder {
+
+    private int windowSize = 100;
+    private int minimumCalls = 10;
+    private double failureRateThreshold = 0.5;
+    private long slowCallDuration = Long.MAX_VALUE;
+    private double slowCallRateThreshold = 1.0;
+    private long openTimeout = Duration.ofSeconds(60).toNanos();
+    private int halfOpenCalls = 5;
+
+    private Builder() { }
+
+    public Builder windowSize(int windowSize) {
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    public Builder minimumCalls(int minimumCalls) {
+      this.minimumCalls = minimumCalls;
+      return this;
+    }
+
+    public Builder failureRateThreshold(double failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    public Builder slowCallDuration(Duration slowCallDuration) {
+      this.slowCallDuration = requireNonNull(slowCallDuration).toNanos();
+      return this;
+    }
+
+    public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+      this.slowCallRateThreshold = slowCallRateThreshold;
+      return this;
+    }
+
+    public Builder openTimeout(Duration openTimeout) {
+      this.openTimeout = requireNonNull(openTimeout).toNanos();
+      return this;
+    }
+
+    public Builder halfOpenCalls(int halfOpenCalls) {
+      this.halfOpenCalls = halfOpenCalls;
+      return this;
+    }
+
+    public CircuitBreaker build() {
+      if (windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1) {
+        throw new IllegalArgumentException("window size, minimum calls and half open calls must be positive");
+      }
+      if (failureRateThreshold <= 0 || failureRateThreshold > 1
+          || slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+        throw new IllegalArgumentException("thresholds must be between 0 and 1");
+      }
+      return new CircuitBreaker(this);
+    }
+  }
+}
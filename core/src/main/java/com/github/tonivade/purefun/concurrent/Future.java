@@ -22,6 +22,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import static com.github.tonivade.purefun.Function1.cons;
@@ -64,7 +65,13 @@ import static java.util.concurrent.CompletableFuture.supplyAsync;
 @HigherKind
 public interface Future<T> {
 
-  Executor DEFAULT_EXECUTOR = Executors.newCachedThreadPool();
+  Executor DEFAULT_EXECUTOR = BlockingWatchdog.monitor("purefun-default", Executors.newCachedThreadPool());
+
+  /**
+   * Shared timer, it only dispatches delayed tasks, so a single daemon thread is enough
+   * for any number of pending delays. Cancelled tasks are removed from the queue.
+   */
+  ScheduledExecutorService DEFAULT_SCHEDULER = FutureModule.scheduler();
 
   Try<T> await();
   Try<T> await(Duration timeout);
@@ -163,6 +170,14 @@ public interface Future<T> {
     return async(executor, future::get);
   }
 
+  static <T> Future<T> from(Promise<T> promise) {
+    return from(DEFAULT_EXECUTOR, promise);
+  }
+
+  static <T> Future<T> from(Executor executor, Promise<T> promise) {
+    return FutureImpl.from(executor, promise);
+  }
+
   static <T> Future<T> async(Producer<T> task) {
     return async(DEFAULT_EXECUTOR, task);
   }
@@ -218,9 +233,44 @@ public interface Future<T> {
   static <T, R> Future<R> bracket(Executor executor, Future<T> acquire, Function1<T, Future<R>> use, Consumer1<T> release) {
     return FutureImpl.bracket(executor, acquire, use, release);
   }
+
+  static <T> Future<T> protect(CircuitBreaker breaker, Producer<Future<T>> producer) {
+    return protect(DEFAULT_EXECUTOR, breaker, producer);
+  }
+
+  static <T> Future<T> protect(Executor executor, CircuitBreaker breaker, Producer<Future<T>> producer) {
+    return FutureModule.protect(executor, breaker, producer);
+  }
 }
 
-interface FutureModule { }
+interface FutureModule {
+
+  static <T> Future<T> protect(Executor executor, CircuitBreaker breaker, Producer<Future<T>> producer) {
+    return breaker.tryAcquire().fold(
+        () -> Future.failure(executor, CircuitBreaker.OpenException.INSTANCE),
+        permit -> {
+          long start = System.nanoTime();
+          return Future.defer(executor, producer).onComplete(result -> {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            if (result.isSuccess()) {
+              permit.onSuccess(elapsed);
+            } else {
+              permit.onFailure(elapsed);
+            }
+          });
+        });
+  }
+
+  static ScheduledExecutorService scheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "purefun-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+}
 
 final class FutureImpl<T> implements Future<T> {
 
@@ -396,13 +446,11 @@ final class FutureImpl<T> implements Future<T> {
 
 final class Delayed {
 
-  private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(0);
-
   protected static Promise<Unit> sleep(Executor executor, Duration delay) {
     return Promise.from(executor, supplyAsync(Unit::unit, delayedExecutor(delay, executor)));
   }
 
   private static Executor delayedExecutor(Duration delay, Executor executor) {
-    return task -> SCHEDULER.schedule(() -> executor.execute(task), delay.toMillis(), TimeUnit.MILLISECONDS);
+    return task -> Future.DEFAULT_SCHEDULER.schedule(() -> executor.execute(task), delay.toMillis(), TimeUnit.MILLISECONDS);
   }
 }
\ No newline at end of file
@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Pool of reusable resources, like connections, that are expensive to create.</p>
+ *
+ * <p>The pool grows on demand up to {@code maxSize} resources. When all of them are borrowed, the requests
+ * wait in a queue and are served in order of arrival when a resource is released. Nobody blocks a thread
+ * waiting, the callback is called when the resource is available. Resources idle for more than
+ * {@code idleTimeout} are destroyed, but at least {@code minSize} resources are kept, and resources older
+ * than {@code maxLifetime} are destroyed instead of being returned to the pool.</p>
+ *
+ * <p>Usually it's not used directly, but as the acquire and release pair of a bracket,
+ * see {@code IO.bracket(pool, use)} or {@code ZIO.bracket(pool, use)}.</p>
+ *
+ * <pre>
+ * ResourcePool&lt;Connection&gt; pool = ResourcePool.builder(dataSource::getConnection, Connection::close)
+ *     .minSize(2).maxSize(10).idleTimeout(Duration.ofMinutes(1)).build();
+ * </pre>
+ *
+ * @param <T> type of the resources
+ */
+public final class ResourcePool<T> implements AutoCloseable {
+
+  private static final long MIN_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final int minSize;
+  private final int maxSize;
+  private final long idleTimeout;
+  private final long maxLifetime;
+  private final Producer<T> create;
+  private final Consumer1<T> destroy;
+  private final Executor executor;
+  private final ScheduledFuture<?> maintenance;
+
+  private final Deque<Entry<T>> idle = new ArrayDeque<>();
+  private final Deque<Waiter<T>> waiters = new ArrayDeque<>();
+  private final Map<T, Entry<T>> borrowed = new IdentityHashMap<>();
+  private int size;
+  private boolean closed;
+  private long acquired;
+  private long totalWaitTime;
+  private long maxWaitTime;
+
+  private ResourcePool(Builder<T> builder) {
+    this.minSize = builder.minSize;
+    this.maxSize = builder.maxSize;
+    this.idleTimeout = builder.idleTimeout;
+    this.maxLifetime = builder.maxLifetime;
+    this.create = builder.create;
+    this.destroy = builder.destroy;
+    this.executor = builder.executor;
+    long period = Math.max(Math.min(idleTimeout, maxLifetime) / 2, MIN_PERIOD);
+    if (period < Long.MAX_VALUE / 2) {
+      this.maintenance = Future.DEFAULT_SCHEDULER.scheduleWithFixedDelay(
+          () -> executor.execute(this::maintain), period, period, TimeUnit.NANOSECONDS);
+    } else {
+      this.maintenance = null;
+    }
+    if (minSize > 0) {
+      executor.execute(this::maintain);
+    }
+  }
+
+  public static <T> Builder<T> builder(Producer<T> create, Consumer1<T> destroy) {
+    return new Builder<>(create, destroy);
+  }
+
+  /**
+   * Borrows a resource, the callback is called when a resource is available, in the current thread
+   * if there's one idle or a new one can be created, or in the thread that releases a resource otherwise.
+   *
+   * @param callback receives the resource or the error that happened creating it
+   * @return a canceller, it removes the request from the queue if it's still waiting
+   */
+  public Runnable acquire(Consumer1<Try<T>> callback) {
+    requireNonNull(callback);
+    List<T> expired = new ArrayList<>();
+    Entry<T> entry = null;
+    Waiter<T> waiter = null;
+    boolean grow = false;
+    boolean isClosed;
+    synchronized (this) {
+      isClosed = closed;
+      if (!closed) {
+        long now = System.nanoTime();
+        while (entry == null && !idle.isEmpty()) {
+          Entry<T> next = idle.pollFirst();
+          if (next.isExpired(now, maxLifetime)) {
+            size--;
+            expired.add(next.resource);
+          } else {
+            entry = next;
+            borrow(entry, 0);
+          }
+        }
+        if (entry == null) {
+          if (size < maxSize) {
+            size++;
+            grow = true;
+          } else {
+            waiter = new Waiter<>(callback, now);
+            waiters.addLast(waiter);
+          }
+        }
+      }
+    }
+    destroy(expired);
+    if (isClosed) {
+      callback.accept(Try.failure(new IllegalStateException("pool closed")));
+    } else if (entry != null) {
+      callback.accept(Try.success(entry.resource));
+    } else if (grow) {
+      create(callback);
+    } else {
+      Waiter<T> pending = waiter;
+      return () -> cancel(pending);
+    }
+    return () -> { };
+  }
+
+  /**
+   * Returns a borrowed resource to the pool, it's given to the first request in the queue, if any.
+   */
+  public void release(T resource) {
+    Entry<T> entry;
+    synchronized (this) {
+      entry = borrowed.remove(resource);
+    }
+    if (entry == null) {
+      throw new IllegalArgumentException("resource not borrowed from this pool: " + resource);
+    }
+    if (entry.isExpired(System.nanoTime(), maxLifetime)) {
+      discard(entry);
+    } else {
+      offer(entry);
+    }
+  }
+
+  /**
+   * Destroys a borrowed resource that is broken, instead of returning it to the pool.
+   */
+  public void invalidate(T resource) {
+    Entry<T> entry;
+    synchronized (this) {
+      entry = borrowed.remove(resource);
+    }
+    if (entry == null) {
+      throw new IllegalArgumentException("resource not borrowed from this pool: " + resource);
+    }
+    discard(entry);
+  }
+
+  public synchronized Metrics metrics() {
+    return new Metrics(size, borrowed.size(), idle.size(), waiters.size(),
+        acquired, Duration.ofNanos(totalWaitTime), Duration.ofNanos(maxWaitTime));
+  }
+
+  /**
+   * Destroys the idle resources and fails the requests that are waiting, resources still borrowed
+   * are destroyed when they are released.
+   */
+  @Override
+  public void close() {
+    List<T> resources = new ArrayList<>();
+    List<Waiter<T>> pending;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (Entry<T> entry : idle) {
+        resources.add(entry.resource);
+      }
+      size -= idle.size();
+      idle.clear();
+      pending = new ArrayList<>(waiters);
+      waiters.clear();
+    }
+    if (maintenance != null) {
+      maintenance.cancel(false);
+    }
+    destroy(resources);
+    for (Waiter<T> waiter : pending) {
+      waiter.callback.accept(Try.failure(new IllegalStateException("pool closed")));
+    }
+  }
+
+  /**
+   * Destroys the resources that are idle for too long or too old, and creates new ones
+   * up to the minimum size.
+   */
+  private void maintain() {
+    List<T> expired = new ArrayList<>();
+    int missing;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      long now = System.nanoTime();
+      Iterator<Entry<T>> iterator = idle.descendingIterator();
+      while (iterator.hasNext()) {
+        Entry<T> entry = iterator.next();
+        if (entry.isExpired(now, maxLifetime) || (now - entry.lastUsed > idleTimeout && size > minSize)) {
+          iterator.remove();
+          size--;
+          expired.add(entry.resource);
+        }
+      }
+      missing = Math.max(0, minSize - size);
+      size += missing;
+    }
+    destroy(expired);
+    for (int i = 0; i < missing; i++) {
+      Try<T> resource = Try.of(create);
+      if (resource.isSuccess()) {
+        offer(new Entry<>(resource.get(), System.nanoTime()));
+      } else {
+        synchronized (this) {
+          size--;
+        }
+        grow();
+      }
+    }
+  }
+
+  private void create(Consumer1<Try<T>> callback) {
+    Try<T> resource = Try.of(create);
+    synchronized (this) {
+      if (resource.isSuccess()) {
+        borrow(new Entry<>(resource.get(), System.nanoTime()), 0);
+      } else {
+        size--;
+      }
+    }
+    callback.accept(resource);
+    if (resource.isFailure()) {
+      grow();
+    }
+  }
+
+  private void offer(Entry<T> entry) {
+    Waiter<T> waiter;
+    boolean isClosed;
+    synchronized (this) {
+      isClosed = closed;
+      waiter = closed ? null : waiters.pollFirst();
+      long now = System.nanoTime();
+      if (isClosed) {
+        size--;
+      } else if (waiter != null) {
+        borrow(entry, now - waiter.since);
+      } else {
+        entry.lastUsed = now;
+        idle.addFirst(entry);
+      }
+    }
+    if (isClosed) {
+      destroy(entry.resource);
+    } else if (waiter != null) {
+      waiter.callback.accept(Try.success(entry.resource));
+    }
+  }
+
+  private void discard(Entry<T> entry) {
+    synchronized (this) {
+      size--;
+    }
+    destroy(entry.resource);
+    grow();
+  }
+
+  /**
+   * Creates resources for the requests in the queue while there is room in the pool. If the creation
+   * fails, the request receives the error and the next one is tried, so nobody waits for a resource
+   * that is never going to be released.
+   */
+  private void grow() {
+    while (true) {
+      Waiter<T> waiter;
+      synchronized (this) {
+        if (closed || waiters.isEmpty() || size >= maxSize) {
+          return;
+        }
+        waiter = waiters.pollFirst();
+        size++;
+      }
+      Try<T> resource = Try.of(create);
+      synchronized (this) {
+        if (resource.isSuccess()) {
+          long now = System.nanoTime();
+          borrow(new Entry<>(resource.get(), now), now - waiter.since);
+        } else {
+          size--;
+        }
+      }
+      waiter.callback.accept(resource);
+      if (resource.isSuccess()) {
+        return;
+      }
+    }
+  }
+
+  private synchronized void cancel(Waiter<T> waiter) {
+    waiters.remove(waiter);
+  }
+
+  private void borrow(Entry<T> entry, long waitTime) {
+    borrowed.put(entry.resource, entry);
+    acquired++;
+    totalWaitTime += waitTime;
+    maxWaitTime = Math.max(maxWaitTime, waitTime);
+  }
+
+  private void destroy(List<T> resources) {
+    for (T resource : resources) {
+      destroy(resource);
+    }
+  }
+
+  /**
+   * Errors destroying a resource are ignored, the resource is not in the pool anymore anyway.
+   */
+  private void destroy(T resource) {
+    try {
+      destroy.run(resource);
+    } catch (Throwable e) {
+      // nothing to do
+    }
+  }
+
+  public static final class Builder<T> {
+
+    private final Producer<T> create;
+    private final Consumer1<T> destroy;
+    private int minSize = 0;
+    private int maxSize = 10;
+    private long idleTimeout = Long.MAX_VALUE;
+    private long maxLifetime = Long.MAX_VALUE;
+    private Executor executor = Future.DEFAULT_EXECUTOR;
+
+    private Builder(Producer<T> create, Consumer1<T> destroy) {
+      this.create = requireNonNull(create);
+      this.destroy = requireNonNull(destroy);
+    }
+
+    public Builder<T> minSize(int minSize) {
+      this.minSize = minSize;
+      return this;
+    }
+
+    public Builder<T> maxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    public Builder<T> idleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout.toNanos();
+      return this;
+    }
+
+    public Builder<T> maxLifetime(Duration maxLifetime) {
+      this.maxLifetime = maxLifetime.toNanos();
+      return this;
+    }
+
+    /**
+     * @param executor where the resources are created to keep the minimum size
+     */
+    public Builder<T> executor(Executor executor) {
+      this.executor = requireNonNull(executor);
+      return this;
+    }
+
+    public ResourcePool<T> build() {
+      if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+        throw new IllegalArgumentException("invalid pool size: min=" + minSize + ", max=" + maxSize);
+      }
+      if (idleTimeout <= 0 || maxLifetime <= 0) {
+        throw new IllegalArgumentException("timeouts must be positive");
+      }
+      return new ResourcePool<>(this);
+    }
+  }
+
+  public static final class Metrics {
+
+    private final int size;
+    private final int borrowed;
+    private final int idle;
+    private final int waiters;
+    private final long acquired;
+    private final Duration totalWaitTime;
+    private final Duration maxWaitTime;
+
+    private Metrics(int size, int borrowed, int idle, int waiters,
+                    long acquired, Duration totalWaitTime, Duration maxWaitTime) {
+      this.size = size;
+      this.borrowed = borrowed;
+      this.idle = idle;
+      this.waiters = waiters;
+      this.acquired = acquired;
+      this.totalWaitTime = totalWaitTime;
+      this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * @return resources created, borrowed or idle, including the ones that are being created
+     */
+    public int size() {
+      return size;
+    }
+
+    public int borrowed() {
+      return borrowed;
+    }
+
+    public int idle() {
+      return idle;
+    }
+
+    public int waiters() {
+      return waiters;
+    }
+
+    /**
+     * @return number of times a resource has been borrowed
+     */
+    public long acquired() {
+      return acquired;
+    }
+
+    public Duration totalWaitTime() {
+      return totalWaitTime;
+    }
+
+    public Duration maxWaitTime() {
+      return maxWaitTime;
+    }
+
+    public Duration averageWaitTime() {
+      return acquired == 0 ? Duration.ZERO : totalWaitTime.dividedBy(acquired);
+    }
+
+    @Override
+    public String toString() {
+      return "Metrics(size=" + size + ", borrowed=" + borrowed + ", idle=" + idle + ", waiters=" + waiters
+          + ", acquired=" + acquired + ", totalWaitTime=" + totalWaitTime + ", maxWaitTime=" + maxWaitTime + ")";
+    }
+  }
+
+  private static final class Entry<T> {
+
+    private final T resource;
+    private final long createdAt;
+    private long lastUsed;
+
+    private Entry(T resource, long createdAt) {
+      this.resource = resource;
+      this.createdAt = createdAt;
+      this.lastUsed = createdAt;
+    }
+
+    private boolean isExpired(long now, long maxLifetime) {
+      return now - createdAt > maxLifetime;
+    }
+  }
+
+  private static final class Waiter<T> {
+
+    private final Consumer1<Try<T>> callback;
+    private final long since;
+
+    private Waiter(Consumer1<Try<T>> callback, long since) {
+      this.callback = callback;
+      this.since = since;
+    }
+  }
+}
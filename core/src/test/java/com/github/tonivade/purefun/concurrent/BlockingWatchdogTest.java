@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingWatchdogTest {
+
+  private final List<BlockingWatchdog.Report> reports = new CopyOnWriteArrayList<>();
+  private final ExecutorService pool = Executors.newSingleThreadExecutor(task -> new Thread(task, "compute"));
+
+  @AfterEach
+  public void tearDown() {
+    BlockingWatchdog.stop();
+    pool.shutdown();
+  }
+
+  @Test
+  public void reportBlockingTask() throws InterruptedException {
+    BlockingWatchdog.start(Duration.ofMillis(50), reports::add);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    BlockingWatchdog.monitor("compute", pool).execute(() -> sleep(500, latch));
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertEquals(1, reports.size());
+    BlockingWatchdog.Report report = reports.get(0);
+    assertAll(
+        () -> assertEquals("compute", report.executor()),
+        () -> assertEquals("compute", report.thread()),
+        () -> assertTrue(report.blockedTime().toMillis() >= 50),
+        () -> assertTrue(Arrays.stream(report.stackTrace()).anyMatch(element -> element.getMethodName().equals("sleep"))));
+  }
+
+  @Test
+  public void reportInExecutor() throws InterruptedException {
+    ExecutorService sampler = Executors.newSingleThreadExecutor(task -> new Thread(task, "sampler"));
+    List<String> threads = new CopyOnWriteArrayList<>();
+    BlockingWatchdog.start(Duration.ofMillis(50), report -> threads.add(Thread.currentThread().getName()), sampler);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+      BlockingWatchdog.monitor("compute", pool).execute(() -> sleep(500, latch));
+
+      assertTrue(latch.await(1, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList("sampler"), threads);
+    } finally {
+      sampler.shutdown();
+    }
+  }
+
+  @Test
+  public void ignoreIdleThreads() throws InterruptedException {
+    BlockingWatchdog.start(Duration.ofMillis(20), reports::add);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    BlockingWatchdog.monitor("compute", pool).execute(latch::countDown);
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    Thread.sleep(200);
+    assertTrue(reports.isEmpty());
+  }
+
+  @Test
+  public void disabled() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+
+    BlockingWatchdog.monitor("compute", pool).execute(() -> sleep(200, latch));
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertAll(
+        () -> assertFalse(BlockingWatchdog.isEnabled()),
+        () -> assertTrue(reports.isEmpty()));
+  }
+
+  private static void sleep(long millis, CountDownLatch latch) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      latch.countDown();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import com.github.tonivade.purefun.concurrent.CircuitBreaker.Status;
+import com.github.tonivade.purefun.type.Try;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+  private final Duration fast = Duration.ofMillis(1);
+  private final Duration slow = Duration.ofSeconds(1);
+
+  @Test
+  public void tripOnFailures() {
+    CircuitBreaker breaker = CircuitBreaker.builder().windowSize(10).minimumCalls(4).build();
+
+    success(breaker);
+    success(breaker);
+    failure(breaker);
+    Status beforeTrip = breaker.status();
+    failure(breaker);
+
+    assertAll(
+        () -> assertEquals(Status.CLOSED, beforeTrip),
+        () -> assertEquals(Status.OPEN, breaker.status()),
+        () -> assertTrue(breaker.tryAcquire().isEmpty()));
+  }
+
+  @Test
+  public void slidingWindow() {
+    CircuitBreaker breaker = CircuitBreaker.builder().windowSize(4).minimumCalls(4).build();
+
+    failure(breaker);
+    success(breaker);
+    success(breaker);
+    success(breaker);
+    success(breaker);
+
+    assertAll(
+        () -> assertEquals(Status.CLOSED, breaker.status()),
+        () -> assertEquals(0.0, breaker.failureRate()));
+  }
+
+  @Test
+  public void tripOnSlowCalls() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(2)
+        .slowCallDuration(Duration.ofMillis(100)).slowCallRateThreshold(0.5).build();
+
+    breaker.tryAcquire().get().onSuccess(fast);
+    double rate = breaker.slowCallRate();
+    breaker.tryAcquire().get().onSuccess(slow);
+
+    assertAll(
+        () -> assertEquals(0.0, rate),
+        () -> assertEquals(Status.OPEN, breaker.status()));
+  }
+
+  @Test
+  public void halfOpenSuccess() throws InterruptedException {
+    CircuitBreaker breaker = open(2);
+
+    Thread.sleep(100);
+    CircuitBreaker.Permit first = breaker.tryAcquire().get();
+    CircuitBreaker.Permit second = breaker.tryAcquire().get();
+    boolean rejected = breaker.tryAcquire().isEmpty();
+    Status halfOpen = breaker.status();
+    first.onSuccess(fast);
+    second.onSuccess(fast);
+
+    assertAll(
+        () -> assertTrue(rejected),
+        () -> assertEquals(Status.HALF_OPEN, halfOpen),
+        () -> assertEquals(Status.CLOSED, breaker.status()));
+  }
+
+  @Test
+  public void halfOpenFailure() throws InterruptedException {
+    CircuitBreaker breaker = open(2);
+
+    Thread.sleep(100);
+    breaker.tryAcquire().get().onFailure(fast);
+
+    assertAll(
+        () -> assertEquals(Status.OPEN, breaker.status()),
+        () -> assertTrue(breaker.tryAcquire().isEmpty()));
+  }
+
+  @Test
+  public void halfOpenLostProbe() throws InterruptedException {
+    CircuitBreaker breaker = open(1);
+
+    Thread.sleep(100);
+    breaker.tryAcquire().get();
+    Thread.sleep(100);
+    boolean rejected = breaker.tryAcquire().isEmpty();
+    Status reopened = breaker.status();
+    Thread.sleep(100);
+
+    assertAll(
+        () -> assertTrue(rejected),
+        () -> assertEquals(Status.OPEN, reopened),
+        () -> assertTrue(breaker.tryAcquire().isPresent()));
+  }
+
+  @Test
+  public void callWithoutResult() throws InterruptedException {
+    CircuitBreaker breaker = open(1);
+
+    Thread.sleep(100);
+    CircuitBreaker.Call call = breaker.tryAcquire().get().start();
+    Status probing = breaker.status();
+    call.close();
+
+    assertAll(
+        () -> assertEquals(Status.HALF_OPEN, probing),
+        () -> assertEquals(Status.OPEN, breaker.status()));
+  }
+
+  @Test
+  public void stalePermit() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1).openTimeout(Duration.ZERO).build();
+
+    CircuitBreaker.Permit stale = breaker.tryAcquire().get();
+    failure(breaker);
+    CircuitBreaker.Permit probe = breaker.tryAcquire().get();
+    stale.onSuccess(fast);
+
+    assertAll(
+        () -> assertEquals(Status.HALF_OPEN, breaker.status()),
+        () -> assertTrue(probe != stale));
+  }
+
+  @Test
+  public void protectFuture() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1).build();
+    AtomicInteger calls = new AtomicInteger();
+
+    Try<String> failure = Future.protect(breaker, () -> {
+      calls.incrementAndGet();
+      return Future.<String>failure(new UnsupportedOperationException());
+    }).await();
+    waitForStatus(breaker, Status.OPEN);
+    Try<String> rejected = Future.protect(breaker, () -> {
+      calls.incrementAndGet();
+      return Future.success("ok");
+    }).await();
+
+    assertAll(
+        () -> assertTrue(failure.getCause() instanceof UnsupportedOperationException),
+        () -> assertSame(CircuitBreaker.OpenException.INSTANCE, rejected.getCause()),
+        () -> assertEquals(1, calls.get()));
+  }
+
+  private CircuitBreaker open(int halfOpenCalls) {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1)
+        .openTimeout(Duration.ofMillis(50)).halfOpenCalls(halfOpenCalls).build();
+    failure(breaker);
+    return breaker;
+  }
+
+  private void success(CircuitBreaker breaker) {
+    breaker.tryAcquire().get().onSuccess(fast);
+  }
+
+  private void failure(CircuitBreaker breaker) {
+    breaker.tryAcquire().get().onFailure(fast);
+  }
+
+  private void waitForStatus(CircuitBreaker breaker, Status status) {
+    for (int i = 0; i < 100 && breaker.status() != status; i++) {
+      Future.sleep(Duration.ofMillis(10)).await();
+    }
+  }
+}
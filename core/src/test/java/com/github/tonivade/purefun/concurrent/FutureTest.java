@@ -93,6 +93,16 @@ public class FutureTest {
         () -> assertEquals(Try.success("Hello World!"), future.await()));
   }
 
+  @Test
+  public void fromPromise() {
+    Promise<String> promise = Promise.make();
+    Future<String> future = Future.from(promise);
+
+    promise.succeeded("Hello World!");
+
+    assertEquals(Try.success("Hello World!"), future.await());
+  }
+
   @Test
   public void onFailure(@Mock Consumer1<Throwable> consumerFailure) {
     UnsupportedOperationException error = new UnsupportedOperationException();
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.concurrent;
+
+import com.github.tonivade.purefun.type.Try;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourcePoolTest {
+
+  private final AtomicInteger counter = new AtomicInteger();
+  private final List<Connection> destroyed = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void reuse() {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+
+    Connection first = acquire(pool).get();
+    pool.release(first);
+    Connection second = acquire(pool).get();
+
+    assertAll(
+        () -> assertSame(first, second),
+        () -> assertEquals(1, counter.get()));
+  }
+
+  @Test
+  public void fifo() {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+    List<String> served = new CopyOnWriteArrayList<>();
+
+    Connection connection = acquire(pool).get();
+    pool.acquire(result -> served.add("first"));
+    pool.acquire(result -> served.add("second"));
+    ResourcePool.Metrics waiting = pool.metrics();
+    pool.release(connection);
+
+    assertAll(
+        () -> assertEquals(2, waiting.waiters()),
+        () -> assertEquals(1, waiting.borrowed()),
+        () -> assertEquals(1, served.size()),
+        () -> assertEquals("first", served.get(0)),
+        () -> assertEquals(1, pool.metrics().waiters()));
+  }
+
+  @Test
+  public void cancelWaiter() {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+    List<String> served = new CopyOnWriteArrayList<>();
+
+    Connection connection = acquire(pool).get();
+    Runnable cancel = pool.acquire(result -> served.add("cancelled"));
+    pool.acquire(result -> served.add("waiting"));
+    cancel.run();
+    pool.release(connection);
+
+    assertEquals(1, served.size());
+    assertEquals("waiting", served.get(0));
+  }
+
+  @Test
+  public void idleTimeout() throws InterruptedException {
+    ResourcePool<Connection> pool = pool().minSize(1).maxSize(3).idleTimeout(Duration.ofMillis(50)).build();
+
+    try {
+      Connection first = acquire(pool).get();
+      Connection second = acquire(pool).get();
+      Connection third = acquire(pool).get();
+      pool.release(first);
+      pool.release(second);
+      pool.release(third);
+
+      Thread.sleep(300);
+
+      ResourcePool.Metrics metrics = pool.metrics();
+      assertAll(
+          () -> assertEquals(1, metrics.size()),
+          () -> assertEquals(1, metrics.idle()),
+          () -> assertEquals(2, destroyed.size()));
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void maxLifetime() throws InterruptedException {
+    ResourcePool<Connection> pool = pool().maxSize(1).maxLifetime(Duration.ofMillis(50)).build();
+
+    try {
+      Connection first = acquire(pool).get();
+      Thread.sleep(100);
+      pool.release(first);
+      Connection second = acquire(pool).get();
+
+      assertAll(
+          () -> assertNotSame(first, second),
+          () -> assertTrue(first.closed));
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void invalidate() {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+    List<Try<Connection>> served = new CopyOnWriteArrayList<>();
+
+    Connection broken = acquire(pool).get();
+    pool.acquire(served::add);
+    pool.invalidate(broken);
+
+    assertAll(
+        () -> assertTrue(broken.closed),
+        () -> assertEquals(1, served.size()),
+        () -> assertNotSame(broken, served.get(0).get()),
+        () -> assertEquals(1, pool.metrics().size()));
+  }
+
+  @Test
+  public void createFailure() {
+    ResourcePool<Connection> pool = ResourcePool.<Connection>builder(() -> {
+      throw new IllegalStateException();
+    }, Connection::close).build();
+
+    Try<Connection> result = acquire(pool);
+
+    assertAll(
+        () -> assertTrue(result.getCause() instanceof IllegalStateException),
+        () -> assertEquals(0, pool.metrics().size()));
+  }
+
+  @Test
+  public void close() {
+    ResourcePool<Connection> pool = pool().maxSize(2).build();
+
+    Connection idle = acquire(pool).get();
+    Connection borrowed = acquire(pool).get();
+    pool.release(idle);
+    pool.close();
+    pool.release(borrowed);
+
+    assertAll(
+        () -> assertTrue(idle.closed),
+        () -> assertTrue(borrowed.closed),
+        () -> assertTrue(acquire(pool).isFailure()),
+        () -> assertEquals(0, pool.metrics().size()));
+  }
+
+  @Test
+  public void closeWaiters() {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+    List<Try<Connection>> served = new CopyOnWriteArrayList<>();
+
+    acquire(pool).get();
+    pool.acquire(served::add);
+    pool.close();
+
+    assertAll(
+        () -> assertEquals(1, served.size()),
+        () -> assertTrue(served.get(0).getCause() instanceof IllegalStateException),
+        () -> assertEquals(0, pool.metrics().waiters()));
+  }
+
+  @Test
+  public void metrics() throws InterruptedException {
+    ResourcePool<Connection> pool = pool().maxSize(1).build();
+
+    Connection connection = acquire(pool).get();
+    pool.acquire(result -> pool.release(result.get()));
+    Thread.sleep(50);
+    pool.release(connection);
+
+    ResourcePool.Metrics metrics = pool.metrics();
+    assertAll(
+        () -> assertEquals(2, metrics.acquired()),
+        () -> assertEquals(0, metrics.borrowed()),
+        () -> assertEquals(1, metrics.idle()),
+        () -> assertTrue(metrics.maxWaitTime().toMillis() >= 50),
+        () -> assertEquals(metrics.totalWaitTime().dividedBy(2), metrics.averageWaitTime()));
+  }
+
+  @Test
+  public void invalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> pool().minSize(2).maxSize(1).build());
+  }
+
+  @Test
+  public void notBorrowed() {
+    ResourcePool<Connection> pool = pool().build();
+
+    assertThrows(IllegalArgumentException.class, () -> pool.release(new Connection(-1)));
+  }
+
+  private ResourcePool.Builder<Connection> pool() {
+    return ResourcePool.builder(() -> new Connection(counter.incrementAndGet()), connection -> {
+      connection.close();
+      destroyed.add(connection);
+    });
+  }
+
+  private static <T> Try<T> acquire(ResourcePool<T> pool) {
+    Promise<T> promise = Promise.make();
+    pool.acquire(promise::tryComplete);
+    return promise.get(Duration.ofSeconds(1));
+  }
+
+  private static final class Connection {
+
+    private final int id;
+    private volatile boolean closed;
+
+    private Connection(int id) {
+      this.id = id;
+    }
+
+    private void close() {
+      closed = true;
+    }
+
+    @Override
+    public String toString() {
+      return "Connection(" + id + ")";
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Function1.identity;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.type.Either;
+
+/**
+ * Copy of the previous {@code ZIO} evaluator (the {@code LinkedList} based one), reduced to the nodes
+ * needed by the benchmarks, so both interpreters can be compared in the same run.
+ */
+interface BaselineZIO<R, E, A> {
+
+  Either<E, A> provide(R env);
+
+  default <B> BaselineZIO<R, E, B> map(Function1<A, B> map) {
+    return flatMap(map.andThen(BaselineZIO::pure));
+  }
+
+  default <B> BaselineZIO<R, E, B> flatMap(Function1<A, BaselineZIO<R, E, B>> map) {
+    return biflatMap(BaselineZIO::<R, E, B>raiseError, map);
+  }
+
+  default <F, B> BaselineZIO<R, F, B> biflatMap(Function1<E, BaselineZIO<R, F, B>> left,
+                                                Function1<A, BaselineZIO<R, F, B>> right) {
+    return new FlatMapped<>(Producer.cons(this), left, right);
+  }
+
+  default <F, B> BaselineZIO<R, F, B> foldM(Function1<E, BaselineZIO<R, F, B>> mapError,
+                                            Function1<A, BaselineZIO<R, F, B>> map) {
+    return new FoldM<>(this, mapError, map);
+  }
+
+  static <R, E, A> BaselineZIO<R, E, A> pure(A value) {
+    return new Pure<>(value);
+  }
+
+  static <R, E, A> BaselineZIO<R, E, A> raiseError(E error) {
+    return new Failure<>(error);
+  }
+
+  final class Pure<R, E, A> implements BaselineZIO<R, E, A> {
+
+    private final A value;
+
+    private Pure(A value) {
+      this.value = requireNonNull(value);
+    }
+
+    @Override
+    public Either<E, A> provide(R env) {
+      return Either.right(value);
+    }
+  }
+
+  final class Failure<R, E, A> implements BaselineZIO<R, E, A> {
+
+    private final E error;
+
+    private Failure(E error) {
+      this.error = requireNonNull(error);
+    }
+
+    @Override
+    public Either<E, A> provide(R env) {
+      return Either.left(error);
+    }
+  }
+
+  final class FlatMapped<R, E, A, F, B> implements BaselineZIO<R, F, B> {
+
+    private final Producer<BaselineZIO<R, E, A>> current;
+    private final Function1<E, BaselineZIO<R, F, B>> nextError;
+    private final Function1<A, BaselineZIO<R, F, B>> next;
+
+    private FlatMapped(Producer<BaselineZIO<R, E, A>> current,
+                       Function1<E, BaselineZIO<R, F, B>> nextError,
+                       Function1<A, BaselineZIO<R, F, B>> next) {
+      this.current = requireNonNull(current);
+      this.nextError = requireNonNull(nextError);
+      this.next = requireNonNull(next);
+    }
+
+    @Override
+    public Either<F, B> provide(R env) {
+      return evaluate(env, this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <F1, B1> BaselineZIO<R, F1, B1> biflatMap(Function1<F, BaselineZIO<R, F1, B1>> left,
+                                                     Function1<B, BaselineZIO<R, F1, B1>> right) {
+      return new FlatMapped<>(
+          () -> (BaselineZIO<R, F, B>) start(),
+          f -> new FlatMapped<>(
+              () -> run((Either<E, A>) Either.left(f)), left::apply, right::apply),
+          b -> new FlatMapped<>(
+              () -> run((Either<E, A>) Either.right(b)), left::apply, right::apply)
+      );
+    }
+
+    private BaselineZIO<R, E, A> start() {
+      return current.get();
+    }
+
+    private BaselineZIO<R, F, B> run(Either<E, A> value) {
+      return value.bimap(nextError, next).fold(identity(), identity());
+    }
+  }
+
+  final class FoldM<R, E, A, F, B> implements BaselineZIO<R, F, B> {
+
+    private final BaselineZIO<R, E, A> current;
+    private final Function1<E, BaselineZIO<R, F, B>> nextError;
+    private final Function1<A, BaselineZIO<R, F, B>> next;
+
+    private FoldM(BaselineZIO<R, E, A> current,
+                  Function1<E, BaselineZIO<R, F, B>> nextError,
+                  Function1<A, BaselineZIO<R, F, B>> next) {
+      this.current = requireNonNull(current);
+      this.nextError = requireNonNull(nextError);
+      this.next = requireNonNull(next);
+    }
+
+    @Override
+    public Either<F, B> provide(R env) {
+      return current.provide(env).fold(nextError, next).provide(env);
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static <R, E, A> Either<E, A> evaluate(R env, BaselineZIO<R, E, A> self) {
+    Deque<Function1<Either, BaselineZIO>> stack = new LinkedList<>();
+    BaselineZIO<R, E, A> current = self;
+    while (true) {
+      if (current instanceof FlatMapped) {
+        FlatMapped currentFlatMapped = (FlatMapped) current;
+        BaselineZIO<R, E, A> next = currentFlatMapped.start();
+        if (next instanceof FlatMapped) {
+          FlatMapped nextFlatMapped = (FlatMapped) next;
+          current = nextFlatMapped.start();
+          stack.push(currentFlatMapped::run);
+          stack.push(nextFlatMapped::run);
+        } else {
+          current = (BaselineZIO<R, E, A>) currentFlatMapped.run(next.provide(env));
+        }
+      } else if (!stack.isEmpty()) {
+        current = (BaselineZIO<R, E, A>) stack.pop().apply(current.provide(env));
+      } else break;
+    }
+    return current.provide(env);
+  }
+}
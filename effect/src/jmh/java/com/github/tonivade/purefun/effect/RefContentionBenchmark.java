@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Nothing.nothing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.type.Either;
+
+/**
+ * <p>Compares {@code Ref.updateAndGet} with {@code LongRef} and {@code RefM} incrementing a counter shared by
+ * all the threads.</p>
+ *
+ * <p>JMH doesn't accept the number of threads as a parameter, so there's a subclass for every number of threads.
+ * The results only make sense with, at least, as many cores as threads.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RefContentionBenchmark {
+
+  private UIO<Long> refUpdateAndGet;
+  private UIO<Unit> longRefIncrement;
+  private ZIO<Nothing, Nothing, Long> refMUpdateAndGet;
+
+  @Setup
+  public void setup() {
+    Ref<Long> ref = Ref.of(0L);
+    LongRef longRef = LongRef.of(0L);
+    RefM<Long> refM = RefM.of(0L);
+    refUpdateAndGet = ref.updateAndGet(x -> x + 1);
+    longRefIncrement = longRef.increment();
+    refMUpdateAndGet = refM.updateAndGet(x -> ZIO.pure(x + 1));
+  }
+
+  @Benchmark
+  public Long refUpdateAndGet() {
+    return refUpdateAndGet.unsafeRunSync();
+  }
+
+  @Benchmark
+  public Unit longRefIncrement() {
+    return longRefIncrement.unsafeRunSync();
+  }
+
+  @Benchmark
+  public Either<Nothing, Long> refMUpdateAndGet() {
+    return refMUpdateAndGet.provide(nothing());
+  }
+
+  @Threads(1)
+  public static class Threads1 extends RefContentionBenchmark { }
+
+  @Threads(4)
+  public static class Threads4 extends RefContentionBenchmark { }
+
+  @Threads(16)
+  public static class Threads16 extends RefContentionBenchmark { }
+
+  @Threads(64)
+  public static class Threads64 extends RefContentionBenchmark { }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Nothing.nothing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.type.Either;
+
+/**
+ * <p>Compares {@code ZIORunLoop} with the previous evaluator on deep chains of {@code flatMap} and {@code foldM}.</p>
+ *
+ * <p>Left nested chains are built once, right nested chains are built while running. Run it with
+ * {@code -prof gc} to compare the allocation rate. The baseline evaluator runs {@code foldM} recursively,
+ * so depth is limited to values both of them can run.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZIORunLoopBenchmark {
+
+  @Param({ "100", "1000" })
+  public int depth;
+
+  private ZIO<Nothing, String, Integer> leftNested;
+  private BaselineZIO<Nothing, String, Integer> baselineLeftNested;
+  private ZIO<Nothing, String, Integer> foldM;
+  private BaselineZIO<Nothing, String, Integer> baselineFoldM;
+
+  @Setup
+  public void setup() {
+    ZIO<Nothing, String, Integer> zio = ZIO.pure(0);
+    BaselineZIO<Nothing, String, Integer> baseline = BaselineZIO.pure(0);
+    ZIO<Nothing, String, Integer> zioFoldM = ZIO.pure(0);
+    BaselineZIO<Nothing, String, Integer> baselineZioFoldM = BaselineZIO.pure(0);
+    for (int i = 0; i < depth; i++) {
+      zio = zio.flatMap(x -> ZIO.pure(x + 1));
+      baseline = baseline.flatMap(x -> BaselineZIO.pure(x + 1));
+      zioFoldM = zioFoldM.foldM(e -> ZIO.pure(0), x -> x % 2 == 0 ? ZIO.raiseError("even") : ZIO.pure(x + 1));
+      baselineZioFoldM = baselineZioFoldM.foldM(
+          e -> BaselineZIO.pure(0), x -> x % 2 == 0 ? BaselineZIO.raiseError("even") : BaselineZIO.pure(x + 1));
+    }
+    this.leftNested = zio;
+    this.baselineLeftNested = baseline;
+    this.foldM = zioFoldM;
+    this.baselineFoldM = baselineZioFoldM;
+  }
+
+  @Benchmark
+  public Either<String, Integer> leftNested() {
+    return leftNested.provide(nothing());
+  }
+
+  @Benchmark
+  public Either<String, Integer> leftNestedBaseline() {
+    return baselineLeftNested.provide(nothing());
+  }
+
+  @Benchmark
+  public Either<String, Integer> rightNested() {
+    return rightNested(0).provide(nothing());
+  }
+
+  @Benchmark
+  public Either<String, Integer> rightNestedBaseline() {
+    return baselineRightNested(0).provide(nothing());
+  }
+
+  @Benchmark
+  public Either<String, Integer> foldM() {
+    return foldM.provide(nothing());
+  }
+
+  @Benchmark
+  public Either<String, Integer> foldMBaseline() {
+    return baselineFoldM.provide(nothing());
+  }
+
+  private ZIO<Nothing, String, Integer> rightNested(int n) {
+    return ZIO.<Nothing, String, Integer>pure(n).flatMap(x -> x < depth ? rightNested(x + 1) : ZIO.pure(x));
+  }
+
+  private BaselineZIO<Nothing, String, Integer> baselineRightNested(int n) {
+    return BaselineZIO.<Nothing, String, Integer>pure(n)
+        .flatMap(x -> x < depth ? baselineRightNested(x + 1) : BaselineZIO.pure(x));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Unit.unit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.tonivade.purefun.Unit;
+
+/**
+ * <p>Numeric reference for commutative updates, like counters or metrics updated by many threads.</p>
+ *
+ * <p>Unlike {@link Ref}, the value is striped in a {@link LongAdder}, so concurrent updates go to different
+ * cells instead of retrying a compare and set over the same value. The price is that there's no atomic
+ * {@code updateAndGet}: updates don't return the new value, and {@code get} sums all the cells, so
+ * it's not a snapshot if there are updates at the same time.</p>
+ */
+public final class LongRef {
+
+  private final LongAdder value = new LongAdder();
+
+  private LongRef(long initial) {
+    value.add(initial);
+  }
+
+  public UIO<Long> get() {
+    return UIO.task(value::sum);
+  }
+
+  public UIO<Unit> add(long delta) {
+    return UIO.task(() -> { value.add(delta); return unit(); });
+  }
+
+  public UIO<Unit> increment() {
+    return UIO.task(() -> { value.increment(); return unit(); });
+  }
+
+  public UIO<Unit> decrement() {
+    return UIO.task(() -> { value.decrement(); return unit(); });
+  }
+
+  /**
+   * Updates done at the same time can be lost or kept after the reset.
+   */
+  public UIO<Long> getAndReset() {
+    return UIO.task(value::sumThenReset);
+  }
+
+  public static LongRef of(long value) {
+    return new LongRef(value);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("LongRef(%s)", value.sum());
+  }
+}
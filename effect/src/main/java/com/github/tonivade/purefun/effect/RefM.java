@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Function1.identity;
+import static com.github.tonivade.purefun.Unit.unit;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.Tuple2;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Reference whose updates are effects, applied strictly one after another.</p>
+ *
+ * <p>An update that fails, with an error or with an exception, leaves the value unchanged. The updates are
+ * queued, and the thread that finds the reference idle applies the queued updates in order, the ones of
+ * other threads included, so there's never more than one update running and no thread holds a lock while
+ * waiting. ZIO programs are evaluated synchronously, so the rest of the threads wait for the result of its
+ * own update only while another thread is applying it.</p>
+ *
+ * <p>A thread applies its own update and at most {@code BATCH} more, then it wakes up the thread of the next
+ * update in the queue to go on, so a thread is never kept applying the updates of the others. If a thread is
+ * interrupted while its update is still in the queue, the update is abandoned and it's never applied. If it's
+ * already running the thread waits for the result and the interrupt flag is kept.</p>
+ *
+ * <p>An update must not update the same reference, it would wait forever for itself.</p>
+ *
+ * @param <A> type of the value
+ */
+public final class RefM<A> implements Recoverable {
+
+  private static final int BATCH = 32;
+
+  private final Queue<Update<?, ?, A, ?>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile A value;
+
+  private RefM(A value) {
+    this.value = value;
+  }
+
+  public UIO<A> get() {
+    return UIO.task(() -> value);
+  }
+
+  public <R, E> ZIO<R, E, Unit> set(A newValue) {
+    return modify(ignore -> ZIO.pure(Tuple.of(unit(), newValue)));
+  }
+
+  public <R, E> ZIO<R, E, A> updateAndGet(Function1<A, ZIO<R, E, A>> update) {
+    requireNonNull(update);
+    return modify(current -> update.apply(current).map(next -> Tuple.of(next, next)));
+  }
+
+  public <R, E> ZIO<R, E, A> getAndUpdate(Function1<A, ZIO<R, E, A>> update) {
+    requireNonNull(update);
+    return modify(current -> update.apply(current).map(next -> Tuple.of(current, next)));
+  }
+
+  /**
+   * @param change returns the result and the new value
+   */
+  public <R, E, B> ZIO<R, E, B> modify(Function1<A, ZIO<R, E, Tuple2<B, A>>> change) {
+    requireNonNull(change);
+    return ZIO.accessM(env -> ZIO.fromEither(() -> submit(new Update<>(env, change))));
+  }
+
+  public static <A> RefM<A> of(A value) {
+    return new RefM<>(value);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("RefM(%s)", value);
+  }
+
+  /**
+   * The thread tries to apply the updates every time it wakes up, so it goes on when the previous thread
+   * hands the queue over to it.
+   */
+  private <E, B> Either<E, B> submit(Update<?, E, A, B> update) {
+    pending.add(update);
+    boolean interrupted = false;
+    while (true) {
+      drain(update);
+      if (update.isDone()) {
+        break;
+      }
+      LockSupport.park(this);
+      if (Thread.interrupted()) {
+        if (update.abandon()) {
+          handOff();
+          return sneakyThrow(new InterruptedException());
+        }
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return update.get();
+  }
+
+  private void drain(Update<?, ?, A, ?> own) {
+    if (pending.isEmpty() || !running.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int more = BATCH;
+      while (!own.isDone() || more-- > 0) {
+        Update<?, ?, A, ?> update = pending.poll();
+        if (update == null) {
+          break;
+        }
+        if (update.start()) {
+          value = update.apply(value);
+        }
+      }
+    } finally {
+      running.set(false);
+    }
+    handOff();
+  }
+
+  /**
+   * Called after releasing the flag, an update could have been queued after the last poll but before
+   * releasing it, when its thread found the flag still taken. The abandoned updates are removed, its
+   * threads are not waiting anymore.
+   */
+  private void handOff() {
+    for (Update<?, ?, A, ?> next = pending.peek(); next != null; next = pending.peek()) {
+      if (next.wakeUp()) {
+        return;
+      }
+      pending.remove(next);
+    }
+  }
+
+  private static final class Update<R, E, A, B> implements Recoverable {
+
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    private final R env;
+    private final Function1<A, ZIO<R, E, Tuple2<B, A>>> change;
+    private final Thread waiter = Thread.currentThread();
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private volatile Try<Either<E, B>> result;
+
+    private Update(R env, Function1<A, ZIO<R, E, Tuple2<B, A>>> change) {
+      this.env = env;
+      this.change = change;
+    }
+
+    private A apply(A current) {
+      Try<Either<E, Tuple2<B, A>>> next = Try.of(() -> change.apply(current).provide(env));
+      if (next.isFailure()) {
+        complete(Try.failure(next.getCause()));
+        return current;
+      }
+      complete(Try.success(next.get().map(Tuple2::get1)));
+      return next.get().fold(error -> current, Tuple2::get2);
+    }
+
+    private void complete(Try<Either<E, B>> value) {
+      result = value;
+      if (waiter != Thread.currentThread()) {
+        LockSupport.unpark(waiter);
+      }
+    }
+
+    private boolean start() {
+      return state.compareAndSet(PENDING, RUNNING);
+    }
+
+    private boolean abandon() {
+      return state.compareAndSet(PENDING, ABANDONED);
+    }
+
+    /**
+     * @return false if the update was abandoned
+     */
+    private boolean wakeUp() {
+      if (state.get() == ABANDONED) {
+        return false;
+      }
+      LockSupport.unpark(waiter);
+      return true;
+    }
+
+    private boolean isDone() {
+      return result != null;
+    }
+
+    private Either<E, B> get() {
+      return result.fold(this::sneakyThrow, identity());
+    }
+  }
+}
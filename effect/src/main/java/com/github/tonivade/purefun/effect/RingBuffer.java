@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Bounded lock-free ring buffer for many producers and many consumers.</p>
+ *
+ * <p>Every slot has a sequence number that tells if it's free for the producer of a position, or if it
+ * has a value ready for the consumer of a position, free sequences are even and ready sequences are odd so
+ * they never collide, even with a single slot. Producers and consumers claim positions moving the tail
+ * or the head with a compare and set, and then publish the slot updating its sequence, so they never wait
+ * for each other except when the buffer is full or empty. Batches claim all the consecutive slots that are
+ * available with a single compare and set.</p>
+ *
+ * @param <A> type of the elements
+ */
+final class RingBuffer<A> {
+
+  private final int capacity;
+  private final AtomicReferenceArray<A> items;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  RingBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.items = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, free(i));
+    }
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  boolean isEmpty() {
+    return tail.get() <= head.get();
+  }
+
+  boolean isFull() {
+    return tail.get() - head.get() >= capacity;
+  }
+
+  /**
+   * @return false if the buffer is full
+   */
+  boolean offer(A value) {
+    while (true) {
+      long position = tail.get();
+      int index = index(position);
+      long sequence = sequences.get(index);
+      if (sequence < free(position)) {
+        return false;
+      }
+      if (sequence == free(position) && tail.compareAndSet(position, position + 1)) {
+        items.lazySet(index, value);
+        sequences.set(index, ready(position));
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return number of values offered, starting by {@code from}
+   */
+  @SuppressWarnings("unchecked")
+  int offer(Object[] values, int from, int count) {
+    while (true) {
+      long position = tail.get();
+      int free = 0;
+      while (free < count && sequences.get(index(position + free)) == free(position + free)) {
+        free++;
+      }
+      if (free == 0) {
+        if (sequences.get(index(position)) < free(position)) {
+          return 0;
+        }
+        continue;
+      }
+      if (tail.compareAndSet(position, position + free)) {
+        for (int i = 0; i < free; i++) {
+          int index = index(position + i);
+          items.lazySet(index, (A) values[from + i]);
+          sequences.set(index, ready(position + i));
+        }
+        return free;
+      }
+    }
+  }
+
+  /**
+   * @return the oldest value, or null if the buffer is empty
+   */
+  A poll() {
+    while (true) {
+      long position = head.get();
+      int index = index(position);
+      long sequence = sequences.get(index);
+      if (sequence < ready(position)) {
+        return null;
+      }
+      if (sequence == ready(position) && head.compareAndSet(position, position + 1)) {
+        A value = items.get(index);
+        items.lazySet(index, null);
+        sequences.set(index, free(position + capacity));
+        return value;
+      }
+    }
+  }
+
+  /**
+   * @return number of values copied to the array, at most {@code max}
+   */
+  int poll(Object[] values, int max) {
+    if (max == 0) {
+      return 0;
+    }
+    while (true) {
+      long position = head.get();
+      int ready = 0;
+      while (ready < max && sequences.get(index(position + ready)) == ready(position + ready)) {
+        ready++;
+      }
+      if (ready == 0) {
+        if (sequences.get(index(position)) < ready(position)) {
+          return 0;
+        }
+        continue;
+      }
+      if (head.compareAndSet(position, position + ready)) {
+        for (int i = 0; i < ready; i++) {
+          int index = index(position + i);
+          values[i] = items.get(index);
+          items.lazySet(index, null);
+          sequences.set(index, free(position + i + capacity));
+        }
+        return ready;
+      }
+    }
+  }
+
+  private int index(long position) {
+    return (int) (position % capacity);
+  }
+
+  private static long free(long position) {
+    return position * 2;
+  }
+
+  private static long ready(long position) {
+    return position * 2 + 1;
+  }
+}
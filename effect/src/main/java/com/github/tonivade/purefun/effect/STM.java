@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Unit.unit;
+import static java.util.Objects.requireNonNull;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Unit;
+
+/**
+ * <p>Description of a transaction over a number of {@link TRef}, nothing is done until it's committed.</p>
+ *
+ * <p>The transaction runs optimistically, without taking any lock, and keeps the values read and written in a
+ * journal. When it ends, the references written are locked, in always the same order, the versions of all the
+ * references read are checked and, if none of them has changed, the new values are written. If any of them has
+ * changed the transaction runs again from the beginning. A transaction also runs again if it sees a reference
+ * changed by another transaction while it's running, so it always sees a consistent state. Versions come from a
+ * global clock, so reading a reference only checks that reference, however many have been read before.</p>
+ *
+ * <p>{@link STM#retry()} aborts the transaction and waits until any of the references read has changed to run it
+ * again, so it's possible to wait for a condition, and {@link STM#orElse(STM)} runs another transaction when the
+ * first one retries. ZIO programs are evaluated synchronously, so the thread waits parked while nothing changes.
+ * As a transaction can run many times it must not have any side effect.</p>
+ *
+ * @param <A> type of the result
+ */
+public final class STM<A> {
+
+  private final Function1<STMJournal, A> run;
+
+  STM(Function1<STMJournal, A> run) {
+    this.run = requireNonNull(run);
+  }
+
+  public <B> STM<B> map(Function1<A, B> map) {
+    requireNonNull(map);
+    return new STM<>(journal -> map.apply(run(journal)));
+  }
+
+  public <B> STM<B> flatMap(Function1<A, STM<B>> map) {
+    requireNonNull(map);
+    return new STM<>(journal -> map.apply(run(journal)).run(journal));
+  }
+
+  public <B> STM<B> andThen(STM<B> next) {
+    requireNonNull(next);
+    return flatMap(ignore -> next);
+  }
+
+  /**
+   * @return a transaction that runs this one, or {@code other} if this one retries, discarding its changes
+   */
+  public STM<A> orElse(STM<A> other) {
+    requireNonNull(other);
+    return new STM<>(journal -> {
+      STMJournal.Checkpoint checkpoint = journal.checkpoint();
+      try {
+        return run(journal);
+      } catch (STMJournal.Retry retry) {
+        journal.rollback(checkpoint);
+        return other.run(journal);
+      }
+    });
+  }
+
+  public UIO<A> commit() {
+    return UIO.task(() -> STMJournal.atomically(this));
+  }
+
+  A run(STMJournal journal) {
+    return run.apply(journal);
+  }
+
+  public static <A> STM<A> pure(A value) {
+    return new STM<>(journal -> value);
+  }
+
+  public static <A> STM<A> retry() {
+    return new STM<>(journal -> { throw STMJournal.Retry.INSTANCE; });
+  }
+
+  /**
+   * @return a transaction that retries while the condition is false
+   */
+  public static STM<Unit> check(boolean condition) {
+    return condition ? pure(unit()) : retry();
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.tonivade.purefun.Recoverable;
+
+/**
+ * <p>Values read and written by a running transaction, with the version of every reference when it was
+ * read for the first time.</p>
+ *
+ * <p>Versions come from a global clock, as in TL2. A transaction reads the clock when it starts, and every
+ * commit takes a new version from the clock after locking the references written, so a reference with a version
+ * not greater than the one of the transaction, and not locked, has a value that was already there when it
+ * started. Only the reference read is checked, so a read never depends on the number of references read
+ * before.</p>
+ */
+final class STMJournal implements Recoverable {
+
+  private static final AtomicLong CLOCK = new AtomicLong();
+
+  private final Map<TRef<?>, Entry<?>> entries = new HashMap<>();
+  private final long readVersion = CLOCK.get();
+
+  private STMJournal() { }
+
+  static <A> A atomically(STM<A> stm) {
+    while (true) {
+      STMJournal journal = new STMJournal();
+      try {
+        A result = stm.run(journal);
+        if (journal.commit()) {
+          return result;
+        }
+      } catch (Conflict conflict) {
+        // run again
+      } catch (Retry retry) {
+        journal.await();
+      } catch (Throwable e) {
+        if (journal.isValid()) {
+          return journal.sneakyThrow(e);
+        }
+      }
+    }
+  }
+
+  <A> A read(TRef<A> ref) {
+    return entry(ref).value;
+  }
+
+  <A> void write(TRef<A> ref, A value) {
+    Entry<A> entry = entry(ref);
+    entry.value = value;
+    entry.written = true;
+  }
+
+  Checkpoint checkpoint() {
+    Map<TRef<?>, Entry<?>> copy = new HashMap<>();
+    for (Entry<?> entry : entries.values()) {
+      copy.put(entry.ref, entry.copy());
+    }
+    return new Checkpoint(copy);
+  }
+
+  /**
+   * Discards the values written after the checkpoint, but the references read are kept, so if the other
+   * branch retries too the transaction waits for any of them.
+   */
+  void rollback(Checkpoint checkpoint) {
+    for (Entry<?> entry : entries.values()) {
+      entry.restore(checkpoint.entries.get(entry.ref));
+    }
+  }
+
+  /**
+   * A reference changed after the transaction started is a conflict, so the transaction never sees values
+   * from different commits. The value is read again after checking the lock, a commit could have published
+   * a new value and released the lock in between.
+   */
+  @SuppressWarnings("unchecked")
+  private <A> Entry<A> entry(TRef<A> ref) {
+    Entry<A> entry = (Entry<A>) entries.get(ref);
+    if (entry == null) {
+      TRef.Versioned<A> current = ref.current();
+      if (current.version > readVersion || ref.isLockedByOther() || ref.current() != current) {
+        throw Conflict.INSTANCE;
+      }
+      entry = new Entry<>(ref, current);
+      entries.put(ref, entry);
+    }
+    return entry;
+  }
+
+  private boolean isValid() {
+    for (Entry<?> entry : entries.values()) {
+      if (!entry.isValid()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * If nobody has committed since the transaction started, the values read can't have changed.
+   */
+  private boolean commit() {
+    List<Entry<?>> written = new ArrayList<>();
+    for (Entry<?> entry : entries.values()) {
+      if (entry.written) {
+        written.add(entry);
+      }
+    }
+    if (written.isEmpty()) {
+      return true;
+    }
+    written.sort(Comparator.comparingLong(entry -> entry.ref.id()));
+    boolean valid;
+    for (Entry<?> entry : written) {
+      entry.ref.lock();
+    }
+    try {
+      long writeVersion = CLOCK.incrementAndGet();
+      valid = writeVersion == readVersion + 1 || isValid();
+      if (valid) {
+        for (Entry<?> entry : written) {
+          entry.publish(writeVersion);
+        }
+      }
+    } finally {
+      for (Entry<?> entry : written) {
+        entry.ref.unlock();
+      }
+    }
+    if (valid) {
+      for (Entry<?> entry : written) {
+        entry.ref.wakeUp();
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * The thread is registered before checking the versions, and the other transactions wake up the threads
+   * registered after updating the versions, so a change is never missed.
+   */
+  private void await() {
+    Thread thread = Thread.currentThread();
+    for (Entry<?> entry : entries.values()) {
+      entry.ref.addWaiting(thread);
+    }
+    try {
+      while (isValid()) {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          sneakyThrow(new InterruptedException());
+        }
+      }
+    } finally {
+      for (Entry<?> entry : entries.values()) {
+        entry.ref.removeWaiting(thread);
+      }
+    }
+  }
+
+  static final class Checkpoint {
+
+    private final Map<TRef<?>, Entry<?>> entries;
+
+    private Checkpoint(Map<TRef<?>, Entry<?>> entries) {
+      this.entries = entries;
+    }
+  }
+
+  private static final class Entry<A> {
+
+    private final TRef<A> ref;
+    private final TRef.Versioned<A> read;
+    private A value;
+    private boolean written;
+
+    private Entry(TRef<A> ref, TRef.Versioned<A> read) {
+      this.ref = ref;
+      this.read = read;
+      this.value = read.value;
+    }
+
+    private boolean isValid() {
+      return ref.current().version == read.version && !ref.isLockedByOther();
+    }
+
+    private void publish(long version) {
+      ref.update(version, value);
+    }
+
+    private Entry<A> copy() {
+      Entry<A> copy = new Entry<>(ref, read);
+      copy.value = value;
+      copy.written = written;
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restore(Entry<?> checkpoint) {
+      if (checkpoint != null) {
+        value = (A) checkpoint.value;
+        written = checkpoint.written;
+      } else {
+        value = read.value;
+        written = false;
+      }
+    }
+  }
+
+  /**
+   * Thrown when the transaction has seen a reference changed by another transaction.
+   */
+  static final class Conflict extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final Conflict INSTANCE = new Conflict();
+
+    private Conflict() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Thrown by {@link STM#retry()}.
+   */
+  static final class Retry extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final Retry INSTANCE = new Retry();
+
+    private Retry() {
+      super(null, null, false, false);
+    }
+  }
+}
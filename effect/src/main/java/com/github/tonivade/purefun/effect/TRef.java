@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Unit.unit;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Operator1;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.Tuple2;
+import com.github.tonivade.purefun.Unit;
+
+/**
+ * <p>Transactional reference, it can only be read and updated inside a {@link STM} transaction, and all the
+ * references updated by a transaction change together when the transaction is committed.</p>
+ *
+ * <p>Every reference has the version of the last transaction that updated it, and its own lock, only
+ * taken while a transaction is writing the new values.</p>
+ *
+ * @param <A> type of the value
+ */
+public final class TRef<A> {
+
+  private static final AtomicLong IDS = new AtomicLong();
+
+  private final long id = IDS.incrementAndGet();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Set<Thread> waiting = ConcurrentHashMap.newKeySet();
+  private volatile Versioned<A> current;
+
+  private TRef(A value) {
+    this.current = new Versioned<>(0, value);
+  }
+
+  public STM<A> get() {
+    return new STM<>(journal -> journal.read(this));
+  }
+
+  public STM<Unit> set(A newValue) {
+    return new STM<>(journal -> { journal.write(this, newValue); return unit(); });
+  }
+
+  public STM<A> getAndSet(A newValue) {
+    return modify(current -> Tuple.of(current, newValue));
+  }
+
+  public STM<A> updateAndGet(Operator1<A> update) {
+    requireNonNull(update);
+    return modify(current -> {
+      A next = update.apply(current);
+      return Tuple.of(next, next);
+    });
+  }
+
+  public STM<A> getAndUpdate(Operator1<A> update) {
+    requireNonNull(update);
+    return modify(current -> Tuple.of(current, update.apply(current)));
+  }
+
+  /**
+   * @param change returns the result and the new value
+   */
+  public <B> STM<B> modify(Function1<A, Tuple2<B, A>> change) {
+    requireNonNull(change);
+    return new STM<>(journal -> {
+      Tuple2<B, A> result = change.apply(journal.read(this));
+      journal.write(this, result.get2());
+      return result.get1();
+    });
+  }
+
+  public static <A> TRef<A> of(A value) {
+    return new TRef<>(value);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("TRef(%s)", current.value);
+  }
+
+  long id() {
+    return id;
+  }
+
+  Versioned<A> current() {
+    return current;
+  }
+
+  void lock() {
+    lock.lock();
+  }
+
+  void unlock() {
+    lock.unlock();
+  }
+
+  boolean isLockedByOther() {
+    return lock.isLocked() && !lock.isHeldByCurrentThread();
+  }
+
+  /**
+   * Only called by the transaction that holds the lock.
+   */
+  void update(long version, A value) {
+    current = new Versioned<>(version, value);
+  }
+
+  void addWaiting(Thread thread) {
+    waiting.add(thread);
+  }
+
+  void removeWaiting(Thread thread) {
+    waiting.remove(thread);
+  }
+
+  void wakeUp() {
+    for (Thread thread : waiting) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  static final class Versioned<A> {
+
+    final long version;
+    final A value;
+
+    private Versioned(long version, A value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.data.Sequence;
+
+/**
+ * <p>Broadcasts every value published to all the subscribers.</p>
+ *
+ * <p>Every subscriber receives the values in its own {@link ZQueue}, created with the same strategy and
+ * capacity as the hub, so a slow subscriber of a {@code bounded} hub makes the publishers wait, and with
+ * a {@code dropping} or {@code sliding} hub it only loses its own values. Values published when there
+ * are no subscribers are lost.</p>
+ *
+ * @param <A> type of the values
+ */
+public final class ZHub<A> {
+
+  private final Producer<ZQueue<A>> factory;
+  private final List<ZQueue<A>> subscribers = new CopyOnWriteArrayList<>();
+
+  private ZHub(Producer<ZQueue<A>> factory) {
+    this.factory = requireNonNull(factory);
+  }
+
+  public UIO<ZQueue<A>> subscribe() {
+    return UIO.task(() -> {
+      ZQueue<A> queue = factory.get();
+      subscribers.add(queue);
+      return queue;
+    });
+  }
+
+  public UIO<Unit> unsubscribe(ZQueue<A> queue) {
+    requireNonNull(queue);
+    return UIO.exec(() -> subscribers.remove(queue));
+  }
+
+  public UIO<Integer> subscribers() {
+    return UIO.task(subscribers::size);
+  }
+
+  /**
+   * @return false if any subscriber has discarded the value
+   */
+  public UIO<Boolean> publish(A value) {
+    requireNonNull(value);
+    return UIO.task(() -> {
+      boolean all = true;
+      for (ZQueue<A> queue : subscribers) {
+        all &= queue.unsafeOffer(value);
+      }
+      return all;
+    });
+  }
+
+  /**
+   * @return false if any subscriber has discarded any of the values
+   */
+  public UIO<Boolean> publishAll(Sequence<A> values) {
+    requireNonNull(values);
+    return UIO.task(() -> {
+      Object[] array = values.stream().map(Objects::requireNonNull).toArray();
+      boolean all = true;
+      for (ZQueue<A> queue : subscribers) {
+        all &= queue.unsafeOfferAll(array);
+      }
+      return all;
+    });
+  }
+
+  public static <A> ZHub<A> bounded(int capacity) {
+    checkCapacity(capacity);
+    return new ZHub<>(() -> ZQueue.bounded(capacity));
+  }
+
+  public static <A> ZHub<A> dropping(int capacity) {
+    checkCapacity(capacity);
+    return new ZHub<>(() -> ZQueue.dropping(capacity));
+  }
+
+  public static <A> ZHub<A> sliding(int capacity) {
+    checkCapacity(capacity);
+    return new ZHub<>(() -> ZQueue.sliding(capacity));
+  }
+
+  private static void checkCapacity(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+  }
+}
@@ -9,8 +9,6 @@ import static com.github.tonivade.purefun.Producer.cons;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.concurrent.Executor;
 
 import com.github.tonivade.purefun.CheckedRunnable;
@@ -23,8 +21,15 @@ import com.github.tonivade.purefun.Kind;
 import com.github.tonivade.purefun.Nothing;
 import com.github.tonivade.purefun.Producer;
 import com.github.tonivade.purefun.Sealed;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.Tuple2;
 import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.CircuitBreaker;
 import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.concurrent.ResourcePool;
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
 import com.github.tonivade.purefun.type.Either;
 import com.github.tonivade.purefun.type.Try;
 import com.github.tonivade.purefun.typeclasses.MonadDefer;
@@ -51,8 +56,18 @@ public interface ZIO<R, E, A> {
     toFuture(executor, env).onComplete(callback);
   }
 
+  /**
+   * Provides the environment built by the layer, the layer is memoized, so the services are built
+   * only once for all the programs that use the same layer.
+   */
+  default <R0> ZIO<R0, E, A> provideLayer(ZLayer<R0, E, R> layer) {
+    return layer.build().flatMap(env -> ZIO.fromEither(() -> provide(env)));
+  }
+
   <F extends Kind> Higher1<F, Either<E, A>> foldMap(R env, MonadDefer<F> monad);
 
+  ZIOModule.Tag getTag();
+
   default ZIO<R, A, E> swap() {
     return new Swap<>(this);
   }
@@ -70,7 +85,7 @@ public interface ZIO<R, E, A> {
   }
 
   default <B> ZIO<R, E, B> flatMap(Function1<A, ZIO<R, E, B>> map) {
-    return biflatMap(ZIO::<R, E, B>raiseError, map);
+    return new FlatMapped<>(cons(this), ZIOModule.raiseError(), map);
   }
 
   default <F> ZIO<R, F, A> flatMapError(Function1<E, ZIO<R, F, A>> map) {
@@ -117,6 +132,43 @@ public interface ZIO<R, E, A> {
     return ZIOModule.repeat(this, UIO.sleep(delay), times);
   }
 
+  default ZIO<R, E, Unit> repeatAtFixedRate(Duration period) {
+    long nanos = ZIOModule.period(period);
+    return ZIO.<R, E, Long>defer(() -> ZIO.pure(System.nanoTime()))
+        .flatMap(start -> ZIOModule.repeatAtFixedRate(this, nanos, start));
+  }
+
+  default ZIO<R, E, Unit> repeatWithFixedDelay(Duration delay) {
+    return ZIOModule.repeatWithFixedDelay(this, UIO.sleep(Duration.ofNanos(ZIOModule.period(delay))));
+  }
+
+  /**
+   * Runs both programs at the same time and returns the first success, the other one is cancelled
+   * and its resources released. If both fail, the result is the last failure.
+   */
+  default ZIO<R, E, A> race(ZIO<R, E, A> other) {
+    return raceAll(ImmutableArray.of(this, other));
+  }
+
+  /**
+   * <p>Hedged request, it runs this program and if there's no success after the delay it starts another copy,
+   * and so on, until {@code maxCopies} are running, or one of them succeeds. The first success is returned
+   * and the rest of the copies are cancelled.</p>
+   *
+   * <p>If all the running copies fail before the delay, the next one is started immediately.</p>
+   *
+   * @param delay time to wait for a success before starting the next copy
+   * @param maxCopies maximum number of copies, including the first one
+   */
+  default ZIO<R, E, A> hedge(Duration delay, int maxCopies) {
+    requireNonNull(delay);
+    if (maxCopies < 1) {
+      throw new IllegalArgumentException("max copies must be positive: " + maxCopies);
+    }
+    return ZIO.accessM(env -> ZIO.fromEither(
+        () -> ZIORace.run(env, Future.DEFAULT_EXECUTOR, delay, maxCopies, index -> this)));
+  }
+
   default ZIO<R, E, A> retry() {
     return retry(1);
   }
@@ -151,6 +203,62 @@ public interface ZIO<R, E, A> {
     return za.flatMap(a -> zb.map(b -> mapper.curried().apply(a).apply(b)));
   }
 
+  static <R, E, A, B> ZIO<R, E, Tuple2<A, B>> zipPar(ZIO<R, E, A> za, ZIO<R, E, B> zb) {
+    return zipPar(za, zb, Tuple::of);
+  }
+
+  /**
+   * Like {@code map2} but both programs run at the same time in {@code Future.DEFAULT_EXECUTOR},
+   * if one of them fails the other one is cancelled.
+   */
+  static <R, E, A, B, C> ZIO<R, E, C> zipPar(ZIO<R, E, A> za, ZIO<R, E, B> zb, Function2<A, B, C> mapper) {
+    requireNonNull(za);
+    requireNonNull(zb);
+    requireNonNull(mapper);
+    return ZIOModule.<R, E, Object>parallel(Future.DEFAULT_EXECUTOR, 2, 2, index -> index == 0 ? za : zb)
+        .map(results -> mapper.apply(ZIOModule.<A>cast(results[0]), ZIOModule.<B>cast(results[1])));
+  }
+
+  /**
+   * Runs as many programs at the same time as available processors, use {@code foreachParN} to choose
+   * another bound, for example for programs that spend most of the time waiting.
+   */
+  static <R, E, A, B> ZIO<R, E, Sequence<B>> foreachPar(Sequence<A> values, Function1<A, ZIO<R, E, B>> mapper) {
+    return foreachParN(Runtime.getRuntime().availableProcessors(), values, mapper);
+  }
+
+  static <R, E, A, B> ZIO<R, E, Sequence<B>> foreachParN(
+      int parallelism, Sequence<A> values, Function1<A, ZIO<R, E, B>> mapper) {
+    return foreachParN(Future.DEFAULT_EXECUTOR, parallelism, values, mapper);
+  }
+
+  /**
+   * <p>Applies the function to all the values and runs the programs in the executor, at most {@code parallelism}
+   * at the same time. The results are in the same order as the values.</p>
+   *
+   * <p>The first program that fails completes the result, the programs that are still running are cancelled,
+   * and the pending ones are never started.</p>
+   */
+  static <R, E, A, B> ZIO<R, E, Sequence<B>> foreachParN(
+      Executor executor, int parallelism, Sequence<A> values, Function1<A, ZIO<R, E, B>> mapper) {
+    requireNonNull(executor);
+    requireNonNull(mapper);
+    Object[] array = values.stream().toArray();
+    return ZIOModule.<R, E, Object>parallel(executor, parallelism, array.length,
+            index -> mapper.apply(ZIOModule.<A>cast(array[index])))
+        .map(results -> ImmutableArray.of(ZIOModule.<B[]>cast(results)));
+  }
+
+  /**
+   * Runs all the programs at the same time and returns the first success, the rest are cancelled
+   * and its resources released. If all of them fail, the result is the last failure.
+   */
+  static <R, E, A> ZIO<R, E, A> raceAll(Sequence<ZIO<R, E, A>> programs) {
+    ImmutableArray<ZIO<R, E, A>> array = ImmutableArray.from(programs);
+    return ZIO.accessM(env -> ZIO.fromEither(
+        () -> ZIORace.run(env, Future.DEFAULT_EXECUTOR, null, array.size(), array::get)));
+  }
+
   static <R, E, A> ZIO<R, E, A> absorb(ZIO<R, E, Either<E, A>> value) {
     return value.flatMap(either -> either.fold(ZIO::raiseError, ZIO::pure));
   }
@@ -202,6 +310,14 @@ public interface ZIO<R, E, A> {
     return new Bracket<>(acquire, use, release);
   }
 
+  static <R, A, B> ZIO<R, Throwable, B> bracket(ResourcePool<A> pool, Function1<A, ZIO<R, Throwable, B>> use) {
+    return bracket(ZIOModule.acquire(pool), use, pool::release);
+  }
+
+  static <R, A> ZIO<R, Throwable, A> protect(CircuitBreaker breaker, ZIO<R, Throwable, A> zio) {
+    return ZIOModule.protect(zio, breaker);
+  }
+
   @SuppressWarnings("unchecked")
   static <R, E> ZIO<R, E, Unit> unit() {
     return (ZIO<R, E, Unit>) ZIOModule.UNIT;
@@ -230,10 +346,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.PURE;
+    }
+
     @Override
     public String toString() {
       return "Pure(" + value + ")";
     }
+
+    protected A value() {
+      return value;
+    }
   }
 
   final class Failure<R, E, A> implements ZIO<R, E, A> {
@@ -259,10 +384,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.FAILURE;
+    }
+
     @Override
     public String toString() {
       return "Failure(" + error + ")";
     }
+
+    protected E error() {
+      return error;
+    }
   }
 
   final class FlatMapped<R, E, A, F, B> implements ZIO<R, F, B> {
@@ -284,18 +418,6 @@ public interface ZIO<R, E, A> {
       return ZIOModule.evaluate(env, this);
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public <F1, B1> ZIO<R, F1, B1> biflatMap(Function1<F, ZIO<R, F1, B1>> left, Function1<B, ZIO<R, F1, B1>> right) {
-      return new FlatMapped<>(
-          () -> (ZIO<R, F, B>) start(),
-          f -> new FlatMapped<>(
-              () -> run((Either<E, A>) Either.left(f)), left::apply, right::apply),
-          b -> new FlatMapped<>(
-              () -> run((Either<E, A>) Either.right(b)), left::apply, right::apply)
-      );
-    }
-
     @Override
     public <X extends Kind> Higher1<X, Either<F, B>> foldMap(R env, MonadDefer<X> monad) {
       Higher1<X, Either<E, A>> foldMap = current.get().foldMap(env, monad);
@@ -309,6 +431,11 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.FLAT_MAPPED;
+    }
+
     @Override
     public String toString() {
       return "FlatMapped(" + current + ", ?, ?)";
@@ -318,8 +445,19 @@ public interface ZIO<R, E, A> {
       return current.get();
     }
 
-    protected ZIO<R, F, B> run(Either<E, A> value) {
-      return value.bimap(nextError, next).fold(identity(), identity());
+    /**
+     * @return true if it was created by {@code flatMap}, so errors are passed through
+     */
+    protected boolean isFlatMap() {
+      return (Object) nextError == ZIOModule.RAISE_ERROR;
+    }
+
+    protected ZIO<R, F, B> onSuccess(A value) {
+      return next.apply(value);
+    }
+
+    protected ZIO<R, F, B> onFailure(E error) {
+      return nextError.apply(error);
     }
   }
 
@@ -346,6 +484,11 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.TASK;
+    }
+
     @Override
     public String toString() {
       return "Task(?)";
@@ -362,12 +505,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<E, A> provide(R env) {
-      return ZIOModule.collapse(this).provide(env);
-    }
-
-    @Override
-    public <B> ZIO<R, E, B> flatMap(Function1<A, ZIO<R, E, B>> map) {
-      return new FlatMapped<>(lazy::get, ZIO::raiseError, map::apply);
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -380,6 +518,11 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.SUSPEND;
+    }
+
     protected ZIO<R, E, A> next() {
       return lazy.get();
     }
@@ -400,7 +543,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<A, E> provide(R env) {
-      return current.provide(env).swap();
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -413,10 +556,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.SWAP;
+    }
+
     @Override
     public String toString() {
       return "Swap(" + current + ")";
     }
+
+    protected ZIO<R, E, A> start() {
+      return current;
+    }
   }
 
   final class Attempt<R, A> implements ZIO<R, Throwable, A> {
@@ -442,10 +594,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.ATTEMPT;
+    }
+
     @Override
     public String toString() {
       return "Attempt(" + current + ")";
     }
+
+    protected A run() {
+      return current.get();
+    }
   }
 
   final class Redeem<R, A> implements ZIO<R, Throwable, A> {
@@ -458,7 +619,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<Throwable, A> provide(R env) {
-      return Try.of(() -> current.provide(env).get()).toEither();
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -471,10 +632,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.REDEEM;
+    }
+
     @Override
     public String toString() {
       return "Redeem(" + current + ")";
     }
+
+    protected ZIO<R, Nothing, A> start() {
+      return current;
+    }
   }
 
   final class AccessM<R, E, A> implements ZIO<R, E, A> {
@@ -487,7 +657,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<E, A> provide(R env) {
-      return function.apply(env).provide(env);
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -501,10 +671,19 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.ACCESS_M;
+    }
+
     @Override
     public String toString() {
       return "AccessM(?)";
     }
+
+    protected ZIO<R, E, A> run(R env) {
+      return function.apply(env);
+    }
   }
 
   final class FoldM<R, E, A, F, B> implements ZIO<R, F, B> {
@@ -521,7 +700,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<F, B> provide(R env) {
-      return current.provide(env).fold(nextError, next).provide(env);
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -536,10 +715,27 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.FOLD_M;
+    }
+
     @Override
     public String toString() {
       return "FoldM(" + current + ", ?, ?)";
     }
+
+    protected ZIO<R, E, A> start() {
+      return current;
+    }
+
+    protected ZIO<R, F, B> onSuccess(A value) {
+      return next.apply(value);
+    }
+
+    protected ZIO<R, F, B> onFailure(E error) {
+      return nextError.apply(error);
+    }
   }
 
   final class Sleep<R> implements ZIO<R, Throwable, Unit> {
@@ -571,6 +767,11 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.SLEEP;
+    }
+
     @Override
     public String toString() {
       return "Sleep(" + duration + ')';
@@ -593,9 +794,7 @@ public interface ZIO<R, E, A> {
 
     @Override
     public Either<Throwable, B> provide(R env) {
-      try (ZIOResource<A> resource = new ZIOResource<>(acquire.provide(env), release)) {
-        return resource.apply(use).provide(env);
-      }
+      return ZIOModule.evaluate(env, this);
     }
 
     @Override
@@ -610,54 +809,104 @@ public interface ZIO<R, E, A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public ZIOModule.Tag getTag() {
+      return ZIOModule.Tag.BRACKET;
+    }
+
     @Override
     public String toString() {
       return "Bracket(" + acquire + ", ?, ?)";
     }
+
+    protected ZIO<R, Throwable, A> acquire() {
+      return acquire;
+    }
+
+    protected ZIOResource<A> open(A resource) {
+      return new ZIOResource<>(resource, release);
+    }
+
+    protected ZIO<R, Throwable, B> use(ZIOResource<A> resource) {
+      return resource.apply(use);
+    }
   }
 }
 
 interface ZIOModule {
   ZIO<?, ?, Unit> UNIT = ZIO.pure(Unit.unit());
 
-  static <R, E, A, F, B> ZIO<R, E, A> collapse(ZIO<R, E, A> self) {
-    ZIO<R, E, A> current = self;
-    while (true) {
-      if (current instanceof ZIO.Suspend) {
-        ZIO.Suspend<R, E, A> suspend = (ZIO.Suspend<R, E, A>) current;
-        current = suspend.next();
-      } else if (current instanceof ZIO.FlatMapped) {
-        ZIO.FlatMapped<R, F, B, E, A> flatMapped = (ZIO.FlatMapped<R, F, B, E, A>) current;
-        return new ZIO.FlatMapped<>(
-            flatMapped::start,
-            e -> collapse(flatMapped.run(Either.left(e))),
-            a -> collapse(flatMapped.run(Either.right(a))));
-      } else break;
-    }
-    return current;
+  /**
+   * Error continuation of {@code flatMap}, the interpreter checks it by identity to pass errors through
+   */
+  Function1<Object, ZIO<Object, Object, Object>> RAISE_ERROR = ZIO::raiseError;
+
+  enum Tag {
+    PURE, FAILURE, FLAT_MAPPED, TASK, SUSPEND, SWAP, ATTEMPT, REDEEM, ACCESS_M, FOLD_M, SLEEP, BRACKET
+  }
+
+  static <R, E, A> ZIO<R, E, Object[]> parallel(Executor executor, int parallelism, int size,
+                                                 Function1<Integer, ZIO<R, E, ?>> programs) {
+    return ZIO.accessM(env -> ZIO.fromEither(() -> ZIOParallel.run(env, executor, parallelism, size, programs)));
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> T cast(Object value) {
+    return (T) value;
   }
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
   static <R, E, A> Either<E, A> evaluate(R env, ZIO<R, E, A> self) {
-    Deque<Function1<Either, ZIO>> stack = new LinkedList<>();
-    ZIO<R, E, A> current = self;
-    while (true) {
-      if (current instanceof ZIO.FlatMapped) {
-        ZIO.FlatMapped currentFlatMapped = (ZIO.FlatMapped) current;
-        ZIO<R, E, A> next = currentFlatMapped.start();
-        if (next instanceof ZIO.FlatMapped) {
-          ZIO.FlatMapped nextFlatMapped = (ZIO.FlatMapped) next;
-          current = nextFlatMapped.start();
-          stack.push(currentFlatMapped::run);
-          stack.push(nextFlatMapped::run);
-        } else {
-          current = (ZIO<R, E, A>) currentFlatMapped.run(next.provide(env));
+    return new ZIORunLoop<>(env, self).run();
+  }
+
+  @SuppressWarnings("unchecked")
+  static <R, E, A> Function1<E, ZIO<R, E, A>> raiseError() {
+    return (Function1<E, ZIO<R, E, A>>) (Function1<?, ?>) RAISE_ERROR;
+  }
+
+  /**
+   * ZIO programs are evaluated synchronously, so the thread waits until the pool has a resource available.
+   *
+   * <p>If the thread is interrupted while waiting it leaves the queue of the pool, and the promise is completed
+   * with the failure, so a resource given to it at the same time, that nobody is going to use, goes back to the
+   * pool.</p>
+   */
+  static <R, A> ZIO<R, Throwable, A> acquire(ResourcePool<A> pool) {
+    return ZIO.fromEither(() -> {
+      Promise<A> promise = Promise.make();
+      Runnable canceller = pool.acquire(resource -> {
+        if (!promise.tryComplete(resource)) {
+          resource.onSuccess(pool::release);
         }
-      } else if (!stack.isEmpty()) {
-        current = (ZIO<R, E, A>) stack.pop().apply(current.provide(env));
-      } else break;
-    }
-    return current.provide(env);
+      });
+      Try<A> result = promise.get();
+      if (result.isFailure()) {
+        canceller.run();
+        if (!promise.tryComplete(result)) {
+          promise.get().onSuccess(pool::release);
+        }
+      }
+      return result.toEither();
+    });
+  }
+
+  /**
+   * The permit is acquired by a bracket, so the call is closed, and counted as a failure, when the program
+   * is cancelled or throws an exception instead of returning an error.
+   */
+  static <R, A> ZIO<R, Throwable, A> protect(ZIO<R, Throwable, A> self, CircuitBreaker breaker) {
+    return ZIO.bracket(
+        ZIO.<R, CircuitBreaker.Call>task(() -> breaker.tryAcquire().map(CircuitBreaker.Permit::start)
+            .getOrElseThrow(() -> CircuitBreaker.OpenException.INSTANCE)),
+        call -> self.foldM(
+            error -> {
+              call.onFailure();
+              return ZIO.raiseError(error);
+            },
+            value -> {
+              call.onSuccess();
+              return ZIO.pure(value);
+            }));
   }
 
   static <R, E, A> ZIO<R, E, A> repeat(ZIO<R, E, A> self, UIO<Unit> delay, int times) {
@@ -670,6 +919,35 @@ interface ZIOModule {
         });
   }
 
+  static long period(Duration period) {
+    long nanos = period.toNanos();
+    if (nanos <= 0) {
+      throw new IllegalArgumentException("period must be positive: " + period);
+    }
+    return nanos;
+  }
+
+  /**
+   * Ticks are aligned to the start, so the period doesn't drift with the time of every execution.
+   * If an execution takes longer than the period, the ticks that have been missed are skipped.
+   */
+  static <R, E, A> ZIO<R, E, Unit> repeatAtFixedRate(ZIO<R, E, A> self, long period, long tick) {
+    return self.flatMap(ignore -> ZIO.defer(() -> {
+      long now = System.nanoTime();
+      long next = tick + period;
+      if (next - now < 0) {
+        next += ((now - next) / period + 1) * period;
+      }
+      long following = next;
+      return UIO.sleep(Duration.ofNanos(following - now)).<R, E>toZIO()
+          .andThen(repeatAtFixedRate(self, period, following));
+    }));
+  }
+
+  static <R, E, A> ZIO<R, E, Unit> repeatWithFixedDelay(ZIO<R, E, A> self, UIO<Unit> pause) {
+    return self.andThen(pause.<R, E>toZIO()).flatMap(ignore -> repeatWithFixedDelay(self, pause));
+  }
+
   static <R, E, A> ZIO<R, E, A> retry(ZIO<R, E, A> self, UIO<Unit> delay, int maxRetries) {
     return self.foldM(
         error -> {
@@ -683,20 +961,20 @@ interface ZIOModule {
 
 final class ZIOResource<A> implements AutoCloseable {
 
-  private final Either<Throwable, A> resource;
+  private final A resource;
   private final Consumer1<A> release;
 
-  ZIOResource(Either<Throwable, A> resource, Consumer1<A> release) {
+  ZIOResource(A resource, Consumer1<A> release) {
     this.resource = requireNonNull(resource);
     this.release = requireNonNull(release);
   }
 
   public <R, B> ZIO<R, Throwable, B> apply(Function1<A, ZIO<R, Throwable, B>> use) {
-    return resource.map(use).fold(ZIO::raiseError, identity());
+    return use.apply(resource);
   }
 
   @Override
   public void close() {
-    resource.toOption().ifPresent(release);
+    release.accept(resource);
   }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Runs a number of independent programs in an executor, at most {@code parallelism} at the same time,
+ * and waits for all of them. The results are kept in the same order as the programs.</p>
+ *
+ * <p>A new program is started every time a program ends successfully. The first program that fails, with
+ * an error or with an exception, completes the result, and the programs that are still running are cancelled,
+ * as in {@code ZIORace}: the flag of its loop is set, so it stops in the next step, and its thread is interrupted,
+ * to wake it up if it's blocked. The pending ones are never started.</p>
+ *
+ * @param <R> environment
+ * @param <E> error of the programs
+ */
+final class ZIOParallel<R, E> implements Recoverable {
+
+  private final R env;
+  private final Executor executor;
+  private final Function1<Integer, ZIO<R, E, ?>> programs;
+  private final int size;
+
+  private final Object[] results;
+  private final AtomicReferenceArray<ZIORunLoop<R, E, ?>> loops;
+  private final AtomicReferenceArray<Future<?>> running;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicInteger remaining;
+  private final Promise<Either<E, Object[]>> promise = Promise.make();
+
+  private ZIOParallel(R env, Executor executor, int size, Function1<Integer, ZIO<R, E, ?>> programs) {
+    this.env = env;
+    this.executor = requireNonNull(executor);
+    this.programs = requireNonNull(programs);
+    this.size = size;
+    this.results = new Object[size];
+    this.loops = new AtomicReferenceArray<>(size);
+    this.running = new AtomicReferenceArray<>(size);
+    this.remaining = new AtomicInteger(size);
+  }
+
+  /**
+   * @return the results in the same order as the programs, or the first error
+   */
+  static <R, E> Either<E, Object[]> run(R env, Executor executor, int parallelism, int size,
+                                        Function1<Integer, ZIO<R, E, ?>> programs) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    if (size == 0) {
+      return Either.right(new Object[0]);
+    }
+    return new ZIOParallel<>(env, executor, size, programs).run(parallelism);
+  }
+
+  private Either<E, Object[]> run(int parallelism) {
+    for (int i = 0; i < Math.min(parallelism, size); i++) {
+      startNext();
+    }
+    Try<Either<E, Object[]>> result = promise.get();
+    if (result.isFailure()) {
+      promise.tryComplete(result);
+      cancelAll();
+      return sneakyThrow(result.getCause());
+    }
+    return result.get();
+  }
+
+  private void startNext() {
+    int index = next.getAndIncrement();
+    if (index >= size || promise.isCompleted()) {
+      return;
+    }
+    ZIORunLoop<R, E, ?> loop = new ZIORunLoop<>(env, programs.apply(index));
+    loops.set(index, loop);
+    Future<? extends Either<E, ?>> future = Future.async(executor, loop::run);
+    running.set(index, future);
+    future.onComplete(result -> complete(index, result));
+    if (promise.isCompleted()) {
+      cancel(index);
+    }
+  }
+
+  private void complete(int index, Try<? extends Either<E, ?>> result) {
+    loops.set(index, null);
+    running.set(index, null);
+    if (result.isFailure()) {
+      fail(Try.failure(result.getCause()));
+    } else if (result.get().isLeft()) {
+      fail(Try.success(Either.left(result.get().getLeft())));
+    } else {
+      results[index] = result.get().get();
+      if (remaining.decrementAndGet() == 0) {
+        promise.tryComplete(Try.success(Either.right(results)));
+      } else {
+        startNext();
+      }
+    }
+  }
+
+  private void fail(Try<Either<E, Object[]>> failure) {
+    if (promise.tryComplete(failure)) {
+      cancelAll();
+    }
+  }
+
+  private void cancelAll() {
+    for (int i = 0; i < size; i++) {
+      cancel(i);
+    }
+  }
+
+  private void cancel(int index) {
+    ZIORunLoop<R, E, ?> loop = loops.get(index);
+    if (loop != null) {
+      loop.cancel();
+    }
+    Future<?> future = running.get(index);
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+}
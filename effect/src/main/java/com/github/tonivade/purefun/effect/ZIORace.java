@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Runs a number of programs in an executor and keeps the first one that succeeds.</p>
+ *
+ * <p>Without delay all the programs are started at the same time. With a delay only the first one is started,
+ * and the next one is started every time the delay elapses, or as soon as all the running programs have failed.
+ * When a program succeeds the rest are cancelled: the flag of its loop is set and its thread is interrupted,
+ * so the loop stops in the next step and releases the resources acquired with {@code bracket}. If all
+ * the programs fail the result is the last failure.</p>
+ *
+ * @param <R> environment
+ * @param <E> error of the programs
+ * @param <A> result of the programs
+ */
+final class ZIORace<R, E, A> implements Recoverable {
+
+  private final R env;
+  private final Executor executor;
+  private final Function1<Integer, ZIO<R, E, A>> programs;
+  private final int size;
+
+  private final AtomicReferenceArray<ZIORunLoop<R, E, A>> loops;
+  private final AtomicReferenceArray<Future<Either<E, A>>> running;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final Promise<Either<E, A>> promise = Promise.make();
+
+  private ZIORace(R env, Executor executor, int size, Function1<Integer, ZIO<R, E, A>> programs) {
+    this.env = env;
+    this.executor = requireNonNull(executor);
+    this.programs = requireNonNull(programs);
+    this.size = size;
+    this.loops = new AtomicReferenceArray<>(size);
+    this.running = new AtomicReferenceArray<>(size);
+  }
+
+  /**
+   * @param delay time to wait before starting the next program, or null to start all of them at once
+   */
+  static <R, E, A> Either<E, A> run(R env, Executor executor, Duration delay, int size,
+                                    Function1<Integer, ZIO<R, E, A>> programs) {
+    if (size < 1) {
+      throw new IllegalArgumentException("at least one program is needed: " + size);
+    }
+    return new ZIORace<>(env, executor, size, programs).run(delay);
+  }
+
+  private Either<E, A> run(Duration delay) {
+    ScheduledFuture<?> hedging = null;
+    if (delay == null) {
+      for (int i = 0; i < size; i++) {
+        startNext();
+      }
+    } else {
+      startNext();
+      long nanos = delay.toNanos();
+      if (size > 1) {
+        hedging = Future.DEFAULT_SCHEDULER.scheduleAtFixedRate(this::startNext, nanos, nanos, TimeUnit.NANOSECONDS);
+      }
+    }
+    Try<Either<E, A>> result = promise.get();
+    if (hedging != null) {
+      hedging.cancel(false);
+    }
+    if (result.isFailure()) {
+      promise.tryComplete(result);
+      cancelAll();
+      return sneakyThrow(result.getCause());
+    }
+    return result.get();
+  }
+
+  private void startNext() {
+    if (promise.isCompleted()) {
+      return;
+    }
+    int index = next.getAndIncrement();
+    if (index >= size) {
+      return;
+    }
+    ZIORunLoop<R, E, A> loop = new ZIORunLoop<>(env, programs.apply(index));
+    loops.set(index, loop);
+    Future<Either<E, A>> future = Future.async(executor, loop::run);
+    running.set(index, future);
+    future.onComplete(result -> complete(index, result));
+    if (promise.isCompleted()) {
+      cancel(index);
+    }
+  }
+
+  private void complete(int index, Try<Either<E, A>> result) {
+    loops.set(index, null);
+    running.set(index, null);
+    if (result.isSuccess() && result.get().isRight()) {
+      if (promise.tryComplete(result)) {
+        cancelAll();
+      }
+      return;
+    }
+    int failures = failed.incrementAndGet();
+    if (failures == size) {
+      promise.tryComplete(result);
+    } else if (failures == Math.min(next.get(), size)) {
+      startNext();
+    }
+  }
+
+  private void cancelAll() {
+    for (int i = 0; i < size; i++) {
+      cancel(i);
+    }
+  }
+
+  private void cancel(int index) {
+    ZIORunLoop<R, E, A> loop = loops.get(index);
+    if (loop != null) {
+      loop.cancel();
+    }
+    Future<Either<E, A>> future = running.get(index);
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.type.Either;
+
+/**
+ * <p>Interpreter of {@code ZIO} programs.</p>
+ *
+ * <p>Continuations are kept in a growable array, next to a byte that tells what kind of frame it is,
+ * and nodes are dispatched by its tag. The result of every step is kept as a value and a flag that tells
+ * if it's an error, so no {@code Either} is allocated until the program ends. A {@code flatMap} pushes a frame
+ * that is only called with values and it's skipped by errors, a {@code foldM} or {@code biflatMap} pushes a frame
+ * that is called with both.</p>
+ *
+ * <p>Values and errors are the most frequent nodes, they are checked by its class before the tag, that's
+ * a single comparison instead of a call to {@code getTag()}, that is megamorphic in any real program. When the
+ * source of a {@code flatMap} or a {@code foldM} is already a value or an error, the continuation is applied
+ * directly without pushing a frame.</p>
+ *
+ * <p>Exceptions thrown by the program, not the typed errors, are propagated to the caller, except inside
+ * {@code redeem}, where they are converted to errors. On the way out the resources opened by {@code bracket}
+ * are released.</p>
+ *
+ * <p>A loop can be cancelled from another thread, the flag is checked before every step, except while a bracket
+ * is acquiring its resource, so a resource acquired is always released. When it's found the rest of the program
+ * is dropped, only the resources that are still open are released, and it ends with
+ * a {@code CancellationException}. The thread should be interrupted too, to wake it up if it's blocked.</p>
+ *
+ * @param <R> environment
+ * @param <E> error of the program
+ * @param <A> result of the program
+ */
+final class ZIORunLoop<R, E, A> implements Recoverable {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final byte SUCCESS = 0;
+  private static final byte FOLD = 1;
+  private static final byte FOLD_M = 2;
+  private static final byte SWAP = 3;
+  private static final byte REDEEM = 4;
+  private static final byte BRACKET = 5;
+  private static final byte RELEASE = 6;
+
+  private Object[] frames = new Object[INITIAL_CAPACITY];
+  private byte[] kinds = new byte[INITIAL_CAPACITY];
+  private int size = 0;
+
+  private final R env;
+  private ZIO<R, ?, ?> current;
+  private Object value;
+  private boolean failed;
+
+  private int masked = 0;
+  private volatile boolean cancelled = false;
+
+  ZIORunLoop(R env, ZIO<R, E, A> program) {
+    this.env = env;
+    this.current = requireNonNull(program);
+  }
+
+  @SuppressWarnings("unchecked")
+  Either<E, A> run() {
+    while (true) {
+      if (cancelled && masked == 0) {
+        abort();
+      }
+      try {
+        if (current != null) {
+          eval();
+        } else if (size == 0) {
+          break;
+        } else {
+          resume();
+        }
+      } catch (Throwable e) {
+        current = null;
+        unwind(e);
+      }
+    }
+    return failed ? Either.left((E) value) : Either.right((A) value);
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private void eval() {
+    ZIO<R, ?, ?> zio = current;
+    if (zio instanceof ZIO.Pure) {
+      current = null;
+      succeed(((ZIO.Pure<R, ?, ?>) zio).value());
+      return;
+    }
+    if (zio instanceof ZIO.Failure) {
+      current = null;
+      fail(((ZIO.Failure<R, ?, ?>) zio).error());
+      return;
+    }
+    switch (zio.getTag()) {
+      case TASK:
+      case SLEEP:
+        current = null;
+        Either<?, ?> either = zio.provide(env);
+        if (either.isRight()) {
+          succeed(either.getRight());
+        } else {
+          fail(either.getLeft());
+        }
+        break;
+      case ATTEMPT:
+        current = null;
+        try {
+          succeed(((ZIO.Attempt<R, ?>) zio).run());
+        } catch (Throwable e) {
+          fail(e);
+        }
+        break;
+      case SUSPEND:
+        current = ((ZIO.Suspend<R, ?, ?>) zio).next();
+        break;
+      case ACCESS_M:
+        current = ((ZIO.AccessM<R, ?, ?>) zio).run(env);
+        break;
+      case FLAT_MAPPED:
+        ZIO.FlatMapped flatMapped = (ZIO.FlatMapped) zio;
+        ZIO<R, ?, ?> source = flatMapped.start();
+        if (source instanceof ZIO.Pure) {
+          current = flatMapped.onSuccess(((ZIO.Pure<R, ?, ?>) source).value());
+        } else if (source instanceof ZIO.Failure) {
+          current = flatMapped.isFlatMap() ? source : flatMapped.onFailure(((ZIO.Failure<R, ?, ?>) source).error());
+        } else {
+          push(flatMapped.isFlatMap() ? SUCCESS : FOLD, flatMapped);
+          current = source;
+        }
+        break;
+      case FOLD_M:
+        ZIO.FoldM foldM = (ZIO.FoldM) zio;
+        ZIO<R, ?, ?> start = foldM.start();
+        if (start instanceof ZIO.Pure) {
+          current = foldM.onSuccess(((ZIO.Pure<R, ?, ?>) start).value());
+        } else if (start instanceof ZIO.Failure) {
+          current = foldM.onFailure(((ZIO.Failure<R, ?, ?>) start).error());
+        } else {
+          push(FOLD_M, foldM);
+          current = start;
+        }
+        break;
+      case SWAP:
+        push(SWAP, null);
+        current = ((ZIO.Swap<R, ?, ?>) zio).start();
+        break;
+      case REDEEM:
+        push(REDEEM, null);
+        current = ((ZIO.Redeem<R, ?>) zio).start();
+        break;
+      case BRACKET:
+        ZIO.Bracket bracket = (ZIO.Bracket) zio;
+        masked++;
+        push(BRACKET, bracket);
+        current = bracket.acquire();
+        break;
+      default:
+        throw new IllegalStateException("unknown node: " + zio);
+    }
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private void resume() {
+    byte kind = kinds[--size];
+    Object frame = frames[size];
+    frames[size] = null;
+    switch (kind) {
+      case SUCCESS:
+        if (!failed) {
+          current = ((ZIO.FlatMapped) frame).onSuccess(value);
+        }
+        break;
+      case FOLD:
+        ZIO.FlatMapped flatMapped = (ZIO.FlatMapped) frame;
+        current = failed ? flatMapped.onFailure(value) : flatMapped.onSuccess(value);
+        break;
+      case FOLD_M:
+        ZIO.FoldM foldM = (ZIO.FoldM) frame;
+        current = failed ? foldM.onFailure(value) : foldM.onSuccess(value);
+        break;
+      case SWAP:
+        failed = !failed;
+        break;
+      case REDEEM:
+        break;
+      case BRACKET:
+        masked--;
+        if (!failed) {
+          ZIO.Bracket bracket = (ZIO.Bracket) frame;
+          ZIOResource resource = bracket.open(value);
+          push(RELEASE, resource);
+          current = bracket.use(resource);
+        }
+        break;
+      case RELEASE:
+        ((ZIOResource<?>) frame).close();
+        break;
+      default:
+        throw new IllegalStateException("unknown frame: " + kind);
+    }
+  }
+
+  /**
+   * Drops the frames until a {@code redeem} is found, releasing the resources that are still open,
+   * if there's none the exception is thrown to the caller.
+   */
+  private void unwind(Throwable error) {
+    while (size > 0) {
+      byte kind = kinds[--size];
+      Object frame = frames[size];
+      frames[size] = null;
+      if (kind == REDEEM) {
+        fail(error);
+        return;
+      }
+      if (kind == BRACKET) {
+        masked--;
+      }
+      if (kind == RELEASE) {
+        try {
+          ((ZIOResource<?>) frame).close();
+        } catch (Throwable e) {
+          if (e != error) {
+            error.addSuppressed(e);
+          }
+        }
+      }
+    }
+    sneakyThrow(error);
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Drops the rest of the program, it only releases the resources that are still open.
+   */
+  private void abort() {
+    current = null;
+    value = null;
+    CancellationException error = new CancellationException();
+    while (size > 0) {
+      byte kind = kinds[--size];
+      Object frame = frames[size];
+      frames[size] = null;
+      if (kind == RELEASE) {
+        try {
+          ((ZIOResource<?>) frame).close();
+        } catch (Throwable e) {
+          error.addSuppressed(e);
+        }
+      }
+    }
+    throw error;
+  }
+
+  private void succeed(Object result) {
+    value = result;
+    failed = false;
+  }
+
+  private void fail(Object result) {
+    value = result;
+    failed = true;
+  }
+
+  private void push(byte kind, Object frame) {
+    if (size == frames.length) {
+      frames = Arrays.copyOf(frames, size << 1);
+      kinds = Arrays.copyOf(kinds, size << 1);
+    }
+    frames[size] = frame;
+    kinds[size++] = kind;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Function2;
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Recipe to build the environment {@code A} of a program, the services, from an input {@code R}.</p>
+ *
+ * <p>A layer is memoized, the services are built the first time the layer is used, and they are shared
+ * by all the programs that use the layer with the same input, compared by identity, so a program that is
+ * provided many times doesn't build its services again. Only successful builds are kept, if the build fails
+ * it's tried again the next time. The last input is the only one remembered.</p>
+ *
+ * <p>Layers are composed vertically with {@code andThen}, the output of a layer is the input of the next one,
+ * and horizontally with {@code zip}, both layers take the same input and are built in parallel, and the outputs
+ * are combined in a single environment, usually an object that implements all the service interfaces.</p>
+ *
+ * @param <R> input of the layer
+ * @param <E> error building the layer
+ * @param <A> environment built by the layer
+ */
+public final class ZLayer<R, E, A> implements Recoverable {
+
+  private final ZIO<R, E, A> build;
+  private final ZIO<R, E, A> memoized;
+
+  private volatile Memo<R, E, A> memo;
+
+  private ZLayer(ZIO<R, E, A> build) {
+    this.build = requireNonNull(build);
+    this.memoized = ZIO.accessM(this::memoize);
+  }
+
+  /**
+   * @return program that builds the environment, or returns the one already built for the same input
+   */
+  public ZIO<R, E, A> build() {
+    return memoized;
+  }
+
+  public <B> ZLayer<R, E, B> map(Function1<A, B> map) {
+    return new ZLayer<>(memoized.map(map));
+  }
+
+  public <B> ZLayer<R, E, B> andThen(ZLayer<A, E, B> next) {
+    return new ZLayer<>(memoized.flatMap(env -> ZIO.fromEither(() -> next.build().provide(env))));
+  }
+
+  public <B, C> ZLayer<R, E, C> zip(ZLayer<R, E, B> other, Function2<A, B, C> combine) {
+    return zip(Future.DEFAULT_EXECUTOR, other, combine);
+  }
+
+  /**
+   * This layer is built in the given executor while the other is built in the current thread.
+   */
+  public <B, C> ZLayer<R, E, C> zip(Executor executor, ZLayer<R, E, B> other, Function2<A, B, C> combine) {
+    requireNonNull(executor);
+    requireNonNull(other);
+    requireNonNull(combine);
+    return new ZLayer<>(ZIO.accessM(env -> ZIO.fromEither(() -> {
+      Future<Either<E, A>> left = memoized.toFuture(executor, env);
+      Either<E, B> right = other.build().provide(env);
+      Try<Either<E, A>> result = left.await();
+      if (result.isFailure()) {
+        return sneakyThrow(result.getCause());
+      }
+      return result.get().flatMap(a -> right.map(b -> combine.apply(a, b)));
+    })));
+  }
+
+  public static <R, E, A> ZLayer<R, E, A> fromZIO(ZIO<R, E, A> build) {
+    return new ZLayer<>(build);
+  }
+
+  public static <R, E, A> ZLayer<R, E, A> fromFunction(Function1<R, A> build) {
+    return new ZLayer<>(ZIO.accessM(env -> ZIO.pure(build.apply(env))));
+  }
+
+  public static <R, E, A> ZLayer<R, E, A> succeed(A value) {
+    return new ZLayer<>(ZIO.pure(value));
+  }
+
+  private ZIO<R, E, A> memoize(R env) {
+    Memo<R, E, A> current = memo;
+    if (current != null && current.input == env) {
+      return current.output;
+    }
+    return ZIO.fromEither(() -> buildOnce(env));
+  }
+
+  private synchronized Either<E, A> buildOnce(R env) {
+    Memo<R, E, A> current = memo;
+    if (current != null && current.input == env) {
+      return Either.right(current.value);
+    }
+    Either<E, A> result = build.provide(env);
+    if (result.isRight()) {
+      memo = new Memo<>(env, result.get());
+    }
+    return result;
+  }
+
+  private static final class Memo<R, E, A> {
+
+    private final R input;
+    private final A value;
+    private final ZIO<R, E, A> output;
+
+    private Memo(R input, A value) {
+      this.input = input;
+      this.value = value;
+      this.output = ZIO.pure(value);
+    }
+  }
+}
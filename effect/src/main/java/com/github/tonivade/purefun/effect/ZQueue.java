@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
+import com.github.tonivade.purefun.type.Option;
+
+/**
+ * <p>Bounded queue to connect producers and consumers of ZIO programs.</p>
+ *
+ * <p>What happens when the queue is full depends on the strategy: a {@code bounded} queue waits until there's
+ * space, a {@code dropping} queue discards the new values, and a {@code sliding} queue discards the oldest values
+ * to make space for the new ones. {@code take} waits until there's a value, {@code poll} and {@code takeUpTo}
+ * never wait.</p>
+ *
+ * <p><b>{@code take}, and {@code offer} and {@code offerAll} of a {@code bounded} queue, block the thread that runs
+ * the program while they wait</b>, there are no fibers to suspend. Don't run them in a pool of a few threads,
+ * like the one used for computations, where the producer may never get a thread to wake up the consumer.</p>
+ *
+ * <p>Values are kept in a lock-free ring buffer, so offers and takes don't use any lock while the queue is
+ * neither full nor empty, and {@code offerAll} and {@code takeUpTo} move a batch of values with a single
+ * compare and set. ZIO programs are evaluated synchronously, so waiting blocks the thread, it's done in a
+ * monitor only when the queue is full or empty, and it's only notified if there's somebody waiting.</p>
+ *
+ * @param <A> type of the values
+ */
+public final class ZQueue<A> {
+
+  private enum Strategy {
+    BOUNDED, DROPPING, SLIDING
+  }
+
+  private final RingBuffer<A> buffer;
+  private final Strategy strategy;
+
+  private final Object monitor = new Object();
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private ZQueue(int capacity, Strategy strategy) {
+    this.buffer = new RingBuffer<>(capacity);
+    this.strategy = requireNonNull(strategy);
+  }
+
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  public UIO<Integer> size() {
+    return UIO.task(buffer::size);
+  }
+
+  /**
+   * A {@code bounded} queue blocks the thread until there's space.
+   *
+   * @return false if the value was discarded because the queue is full
+   */
+  public UIO<Boolean> offer(A value) {
+    requireNonNull(value);
+    return UIO.task(() -> unsafeOffer(value));
+  }
+
+  /**
+   * @return false if any of the values was discarded because the queue is full
+   */
+  public UIO<Boolean> offerAll(Sequence<A> values) {
+    requireNonNull(values);
+    return UIO.task(() -> unsafeOfferAll(values.stream().map(Objects::requireNonNull).toArray()));
+  }
+
+  /**
+   * Blocks the thread until there's a value.
+   */
+  public UIO<A> take() {
+    return UIO.task(this::unsafeTake);
+  }
+
+  public UIO<Option<A>> poll() {
+    return UIO.task(() -> Option.of(buffer.poll()).ifPresent(ignore -> signal()));
+  }
+
+  /**
+   * @return the values available, at most {@code max}, it can be empty
+   */
+  public UIO<Sequence<A>> takeUpTo(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("max must not be negative: " + max);
+    }
+    return UIO.task(() -> unsafeTakeUpTo(max));
+  }
+
+  public static <A> ZQueue<A> bounded(int capacity) {
+    return new ZQueue<>(capacity, Strategy.BOUNDED);
+  }
+
+  public static <A> ZQueue<A> dropping(int capacity) {
+    return new ZQueue<>(capacity, Strategy.DROPPING);
+  }
+
+  public static <A> ZQueue<A> sliding(int capacity) {
+    return new ZQueue<>(capacity, Strategy.SLIDING);
+  }
+
+  boolean unsafeOffer(A value) throws InterruptedException {
+    switch (strategy) {
+      case BOUNDED:
+        while (!buffer.offer(value)) {
+          await(() -> !buffer.isFull());
+        }
+        break;
+      case DROPPING:
+        if (!buffer.offer(value)) {
+          return false;
+        }
+        break;
+      case SLIDING:
+        while (!buffer.offer(value)) {
+          buffer.poll();
+        }
+        break;
+      default:
+        throw new IllegalStateException("unknown strategy: " + strategy);
+    }
+    signal();
+    return true;
+  }
+
+  boolean unsafeOfferAll(Object[] values) throws InterruptedException {
+    int from = 0;
+    if (strategy == Strategy.SLIDING && values.length > buffer.capacity()) {
+      from = values.length - buffer.capacity();
+    }
+    boolean all = true;
+    while (from < values.length) {
+      int offered = buffer.offer(values, from, values.length - from);
+      if (offered > 0) {
+        from += offered;
+        signal();
+      } else if (strategy == Strategy.BOUNDED) {
+        await(() -> !buffer.isFull());
+      } else if (strategy == Strategy.DROPPING) {
+        all = false;
+        break;
+      } else {
+        buffer.poll();
+      }
+    }
+    return all;
+  }
+
+  private A unsafeTake() throws InterruptedException {
+    while (true) {
+      A value = buffer.poll();
+      if (value != null) {
+        signal();
+        return value;
+      }
+      await(() -> !buffer.isEmpty());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Sequence<A> unsafeTakeUpTo(int max) {
+    if (max == 0) {
+      return ImmutableArray.empty();
+    }
+    Object[] values = new Object[Math.min(max, buffer.capacity())];
+    int taken = buffer.poll(values, values.length);
+    if (taken > 0) {
+      signal();
+    }
+    return ImmutableArray.of((A[]) Arrays.copyOf(values, taken));
+  }
+
+  /**
+   * The counter is incremented before checking the condition, and the other side checks the counter after
+   * updating the buffer, so either the condition is true or the other side notifies the monitor.
+   */
+  private void await(Producer<Boolean> condition) throws InterruptedException {
+    waiting.incrementAndGet();
+    try {
+      synchronized (monitor) {
+        while (!condition.get()) {
+          monitor.wait();
+        }
+      }
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private void signal() {
+    if (waiting.get() > 0) {
+      synchronized (monitor) {
+        monitor.notifyAll();
+      }
+    }
+  }
+}
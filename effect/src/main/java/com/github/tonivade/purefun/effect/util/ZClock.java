@@ -35,27 +35,41 @@ public interface ZClock {
   }
 
   static ZClock live() {
-    return new ZClock() {
-      @Override
-      public <R extends ZClock> Service<R> clock() {
-        return new Service<R>() {
-
-          @Override
-          public ZIO<R, Nothing, Long> currentTime() {
-            return UIO.task(System::currentTimeMillis).toZIO();
-          }
-
-          @Override
-          public ZIO<R, Nothing, OffsetDateTime> currentDateTime() {
-            return UIO.task(OffsetDateTime::now).toZIO();
-          }
-
-          @Override
-          public ZIO<R, Nothing, Unit> sleep(Duration duration) {
-            return UIO.exec(() -> Thread.sleep(duration.toMillis())).toZIO();
-          }
-        };
-      }
-    };
+    return ZClockImpl.LIVE;
+  }
+}
+
+/**
+ * The live clock has no state, so a single instance of the service, and of the programs
+ * without parameters, is shared by all the accesses.
+ */
+final class ZClockImpl<R extends ZClock> implements ZClock, ZClock.Service<R> {
+
+  static final ZClock LIVE = new ZClockImpl<>();
+
+  private final ZIO<R, Nothing, Long> currentTime = UIO.task(System::currentTimeMillis).toZIO();
+  private final ZIO<R, Nothing, OffsetDateTime> currentDateTime = UIO.task(OffsetDateTime::now).toZIO();
+
+  private ZClockImpl() { }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends ZClock> ZClock.Service<T> clock() {
+    return (ZClock.Service<T>) this;
+  }
+
+  @Override
+  public ZIO<R, Nothing, Long> currentTime() {
+    return currentTime;
+  }
+
+  @Override
+  public ZIO<R, Nothing, OffsetDateTime> currentDateTime() {
+    return currentDateTime;
+  }
+
+  @Override
+  public ZIO<R, Nothing, Unit> sleep(Duration duration) {
+    return UIO.exec(() -> Thread.sleep(duration.toMillis())).toZIO();
   }
 }
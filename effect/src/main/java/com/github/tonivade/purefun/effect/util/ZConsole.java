@@ -5,12 +5,24 @@
 package com.github.tonivade.purefun.effect.util;
 
 import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.Future;
 import com.github.tonivade.purefun.effect.ZIO;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
 
 public interface ZConsole {
 
@@ -24,59 +36,195 @@ public interface ZConsole {
     return ZIO.accessM(env -> env.<R>console().println(text));
   }
 
+  static <R extends ZConsole> ZIO<R, Throwable, Unit> flush() {
+    return ZIO.accessM(env -> env.<R>console().flush());
+  }
+
   interface Service<R extends ZConsole> {
     ZIO<R, Throwable, String> readln();
 
     ZIO<R, Throwable, Unit> println(String text);
+
+    /**
+     * Writes the lines kept in a buffer, if any.
+     */
+    default ZIO<R, Throwable, Unit> flush() {
+      return ZIO.unit();
+    }
   }
 
   static ZConsole test(final Queue<String> input, final Queue<String> output) {
-    return new ZConsole() {
+    ZConsole.Service<?> service = new ZConsole.Service<ZConsole>() {
+
+      private final ZIO<ZConsole, Throwable, String> readln = ZIO.task(input::poll);
 
       @Override
-      public <R extends ZConsole> Service<R> console() {
-        return new ZConsole.Service<R>() {
-
-          @Override
-          public ZIO<R, Throwable, String> readln() {
-            return ZIO.task(input::poll);
-          }
-
-          @Override
-          public ZIO<R, Throwable, Unit> println(String text) {
-            return ZIO.exec(() -> output.offer(text));
-          }
-        };
+      public ZIO<ZConsole, Throwable, String> readln() {
+        return readln;
+      }
+
+      @Override
+      public ZIO<ZConsole, Throwable, Unit> println(String text) {
+        return ZIO.exec(() -> output.offer(text));
       }
     };
+    return new ZConsoleImpl(service);
   }
 
+  /**
+   * Console over {@code System.in} and {@code System.out}, every line is written as soon as it's printed.
+   * It's a single instance, and all the live consoles, buffered or not, read through the same reader, so
+   * a console never reads ahead the input of another.
+   */
   static ZConsole live() {
-    return new ZConsole() {
+    return ZConsoleLive.LIVE;
+  }
 
-      @Override
-      public <R extends ZConsole> Service<R> console() {
-        return new ZConsole.Service<R>() {
-
-          @Override
-          public ZIO<R, Throwable, String> readln() {
-            return ZIO.task(() -> reader().readLine());
-          }
-
-          @Override
-          public ZIO<R, Throwable, Unit> println(String text) {
-            return ZIO.exec(() -> writer().println(text));
-          }
-
-          private BufferedReader reader() {
-            return new BufferedReader(new InputStreamReader(System.in));
-          }
-
-          private PrintWriter writer() {
-            return new PrintWriter(System.out, true);
-          }
-        };
+  /**
+   * Console over {@code System.in} and {@code System.out} that keeps the lines printed in a buffer, and writes
+   * them when the buffer reaches {@code bufferSize} characters, when {@code flushInterval} has elapsed since
+   * the first line kept, before reading a line, or with {@link ZConsole#flush()}. The lines still in the buffer
+   * are written by a shutdown hook when the JVM exits normally, but a program should end with a flush anyway,
+   * the hook doesn't run if the JVM is killed or halted.
+   */
+  static ZConsole buffered(int bufferSize, Duration flushInterval) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+    }
+    if (flushInterval.isNegative() || flushInterval.isZero()) {
+      throw new IllegalArgumentException("flush interval must be positive: " + flushInterval);
+    }
+    return ZConsoleLive.buffered(bufferSize, flushInterval);
+  }
+}
+
+/**
+ * The service is created once and shared by all the accesses.
+ */
+final class ZConsoleImpl implements ZConsole {
+
+  private final ZConsole.Service<?> service;
+
+  ZConsoleImpl(ZConsole.Service<?> service) {
+    this.service = requireNonNull(service);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <R extends ZConsole> ZConsole.Service<R> console() {
+    return (ZConsole.Service<R>) service;
+  }
+}
+
+/**
+ * <p>All the live consoles share the same reader of {@code System.in}, created again only if {@code System.in}
+ * is replaced, and write to the current {@code System.out}.</p>
+ *
+ * <p>Lines are appended to the buffer holding its lock, and the buffer is written holding the same lock, so
+ * the lines are written in the same order they were printed, and a line is never mixed with others. With
+ * a buffer size of zero every line is written at once.</p>
+ *
+ * <p>The shared timer only hands the flush to {@code Future.DEFAULT_EXECUTOR}, so it never waits for the lock or
+ * for the output. The buffered consoles are kept in a weak set, and a single shutdown hook writes the lines left
+ * in all of them. A console with lines in the buffer has a flush scheduled, so it's not collected before writing
+ * them.</p>
+ */
+final class ZConsoleLive implements ZConsole.Service<ZConsole> {
+
+  static final ZConsole LIVE = new ZConsoleImpl(new ZConsoleLive(0, Duration.ZERO));
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private static final Set<ZConsoleLive> BUFFERED = Collections.newSetFromMap(new WeakHashMap<>());
+  private static boolean hook;
+
+  private static InputStream input;
+  private static BufferedReader reader;
+
+  private final int bufferSize;
+  private final long flushInterval;
+
+  private final StringBuilder buffer = new StringBuilder();
+  private boolean scheduled;
+
+  private final ZIO<ZConsole, Throwable, String> readln = ZIO.task(this::readLine);
+  private final ZIO<ZConsole, Throwable, Unit> flush = ZIO.exec(this::flushBuffer);
+
+  private ZConsoleLive(int bufferSize, Duration flushInterval) {
+    this.bufferSize = bufferSize;
+    this.flushInterval = flushInterval.toNanos();
+  }
+
+  static ZConsole buffered(int bufferSize, Duration flushInterval) {
+    ZConsoleLive console = new ZConsoleLive(bufferSize, flushInterval);
+    synchronized (BUFFERED) {
+      BUFFERED.add(console);
+      if (!hook) {
+        Runtime.getRuntime().addShutdownHook(new Thread(ZConsoleLive::flushAll, "purefun-console-flush"));
+        hook = true;
       }
-    };
+    }
+    return new ZConsoleImpl(console);
+  }
+
+  @Override
+  public ZIO<ZConsole, Throwable, String> readln() {
+    return readln;
+  }
+
+  @Override
+  public ZIO<ZConsole, Throwable, Unit> println(String text) {
+    return ZIO.exec(() -> write(text));
+  }
+
+  @Override
+  public ZIO<ZConsole, Throwable, Unit> flush() {
+    return flush;
+  }
+
+  private static synchronized BufferedReader reader() {
+    if (input != System.in) {
+      input = System.in;
+      reader = new BufferedReader(new InputStreamReader(input));
+    }
+    return reader;
+  }
+
+  private static void flushAll() {
+    List<ZConsoleLive> consoles;
+    synchronized (BUFFERED) {
+      consoles = new ArrayList<>(BUFFERED);
+    }
+    consoles.forEach(ZConsoleLive::flushBuffer);
+  }
+
+  private String readLine() throws IOException {
+    flushBuffer();
+    return reader().readLine();
+  }
+
+  private synchronized void write(String text) {
+    buffer.append(text).append(LINE_SEPARATOR);
+    if (buffer.length() >= bufferSize) {
+      flushBuffer();
+    } else if (!scheduled) {
+      scheduled = true;
+      Future.DEFAULT_SCHEDULER.schedule(
+          () -> Future.DEFAULT_EXECUTOR.execute(this::scheduledFlush), flushInterval, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private synchronized void scheduledFlush() {
+    scheduled = false;
+    flushBuffer();
+  }
+
+  private synchronized void flushBuffer() {
+    PrintStream output = System.out;
+    if (buffer.length() > 0) {
+      output.append(buffer);
+      buffer.setLength(0);
+    }
+    output.flush();
   }
 }
@@ -5,14 +5,17 @@
 package com.github.tonivade.purefun.effect.util;
 
 import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
 import com.github.tonivade.purefun.effect.UIO;
 import com.github.tonivade.purefun.effect.ZIO;
 
 import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.joining;
 
 public interface ZRandom {
 
@@ -42,6 +45,18 @@ public interface ZRandom {
     return ZIO.accessM(env -> env.random().nextString(length));
   }
 
+  static <R extends ZRandom> ZIO<R, Nothing, int[]> nextInts(int size) {
+    return ZIO.accessM(env -> env.<R>random().nextInts(size));
+  }
+
+  static <R extends ZRandom> ZIO<R, Nothing, byte[]> nextBytes(int size) {
+    return ZIO.accessM(env -> env.<R>random().nextBytes(size));
+  }
+
+  static <R extends ZRandom, A> ZIO<R, Nothing, Sequence<A>> shuffle(Sequence<A> values) {
+    return ZIO.accessM(env -> env.<R>random().shuffle(values));
+  }
+
   interface Service<R extends ZRandom> {
     ZIO<R, Nothing, Integer> nextInt();
     ZIO<R, Nothing, Long> nextLong();
@@ -49,14 +64,76 @@ public interface ZRandom {
     ZIO<R, Nothing, Double> nextDouble();
     ZIO<R, Nothing, Character> nextChar();
     ZIO<R, Nothing, String> nextString(int length);
+
+    /**
+     * Generates the values one by one with {@link #nextInt()}.
+     */
+    default ZIO<R, Nothing, int[]> nextInts(int size) {
+      return ZIO.defer(() -> {
+        int[] ints = new int[size];
+        ZIO<R, Nothing, Unit> fill = ZIO.unit();
+        for (int i = 0; i < size; i++) {
+          int index = i;
+          fill = fill.andThen(nextInt().map(value -> {
+            ints[index] = value;
+            return Unit.unit();
+          }));
+        }
+        return fill.map(ignore -> ints);
+      });
+    }
+
+    /**
+     * Takes four bytes of every value of {@link #nextInts(int)}, like {@link Random#nextBytes(byte[])}.
+     */
+    default ZIO<R, Nothing, byte[]> nextBytes(int size) {
+      return nextInts((size + 3) / 4).map(ints -> {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+          bytes[i] = (byte) (ints[i / 4] >> (8 * (i % 4)));
+        }
+        return bytes;
+      });
+    }
+
+    /**
+     * Fisher-Yates shuffle, every position is picked with {@link #nextDouble()}.
+     */
+    @SuppressWarnings("unchecked")
+    default <A> ZIO<R, Nothing, Sequence<A>> shuffle(Sequence<A> values) {
+      requireNonNull(values);
+      return ZIO.defer(() -> {
+        Object[] array = values.stream().toArray();
+        ZIO<R, Nothing, Unit> swaps = ZIO.unit();
+        for (int i = array.length - 1; i > 0; i--) {
+          int index = i;
+          swaps = swaps.andThen(nextDouble().map(value -> {
+            int other = (int) (value * (index + 1));
+            Object current = array[index];
+            array[index] = array[other];
+            array[other] = current;
+            return Unit.unit();
+          }));
+        }
+        return swaps.map(ignore -> ImmutableArray.of((A[]) array));
+      });
+    }
   }
 
+  /**
+   * Every thread uses its own generator, a {@link ThreadLocalRandom}, so threads never compete for the same seed.
+   */
   static ZRandom live() {
-    return new ZRandomImpl(new Random());
+    return new ZRandomImpl(ThreadLocalRandom::current);
   }
 
+  /**
+   * All the threads share the same generator, so the values are always the same for the same seed
+   * when it's used from a single thread.
+   */
   static ZRandom test(long seed) {
-    return new ZRandomImpl(new Random(seed));
+    Random random = new Random(seed);
+    return new ZRandomImpl(() -> random);
   }
 }
 
@@ -64,53 +141,122 @@ class ZRandomImpl implements ZRandom {
 
   private static final String PRINTABLE_CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
-  private Random random;
+  private final RandomService<?> service;
 
-  ZRandomImpl(Random random) {
-    this.random = requireNonNull(random);
+  ZRandomImpl(Producer<Random> random) {
+    this.service = new RandomService<>(requireNonNull(random));
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public <R extends ZRandom> ZRandom.Service<R> random() {
-    return new ZRandom.Service<R>() {
+    return (ZRandom.Service<R>) service;
+  }
 
-      @Override
-      public ZIO<R, Nothing, Integer> nextInt() {
-        return UIO.task(random::nextInt).toZIO();
-      }
+  /**
+   * The service and the programs without parameters are created once, they are only descriptions,
+   * so they can be shared by all the accesses.
+   */
+  private static final class RandomService<R extends ZRandom> implements ZRandom.Service<R> {
 
-      @Override
-      public ZIO<R, Nothing, Long> nextLong() {
-        return UIO.task(random::nextLong).toZIO();
-      }
+    private final Producer<Random> random;
+    private final UIO<Integer> nextInt;
+    private final UIO<Long> nextLong;
+    private final UIO<Float> nextFloat;
+    private final UIO<Double> nextDouble;
+    private final UIO<Character> nextChar;
 
-      @Override
-      public ZIO<R, Nothing, Float> nextFloat() {
-        return UIO.task(random::nextFloat).toZIO();
-      }
+    private RandomService(Producer<Random> random) {
+      this.random = random;
+      this.nextInt = UIO.task(() -> random.get().nextInt());
+      this.nextLong = UIO.task(() -> random.get().nextLong());
+      this.nextFloat = UIO.task(() -> random.get().nextFloat());
+      this.nextDouble = UIO.task(() -> random.get().nextDouble());
+      this.nextChar = UIO.task(() -> randomChar(random.get()));
+    }
 
-      @Override
-      public ZIO<R, Nothing, Double> nextDouble() {
-        return UIO.task(random::nextDouble).toZIO();
-      }
+    @Override
+    public ZIO<R, Nothing, Integer> nextInt() {
+      return nextInt.toZIO();
+    }
 
-      @Override
-      public ZIO<R, Nothing, Character> nextChar() {
-        return UIO.task(this::randomChar).toZIO();
-      }
+    @Override
+    public ZIO<R, Nothing, Long> nextLong() {
+      return nextLong.toZIO();
+    }
+
+    @Override
+    public ZIO<R, Nothing, Float> nextFloat() {
+      return nextFloat.toZIO();
+    }
+
+    @Override
+    public ZIO<R, Nothing, Double> nextDouble() {
+      return nextDouble.toZIO();
+    }
+
+    @Override
+    public ZIO<R, Nothing, Character> nextChar() {
+      return nextChar.toZIO();
+    }
 
-      @Override
-      public ZIO<R, Nothing, String> nextString(int length) {
-        return UIO.task(() -> randomString(length)).toZIO();
+    @Override
+    public ZIO<R, Nothing, String> nextString(int length) {
+      return UIO.task(() -> randomString(random.get(), length)).toZIO();
+    }
+
+    @Override
+    public ZIO<R, Nothing, int[]> nextInts(int size) {
+      return UIO.task(() -> randomInts(random.get(), size)).toZIO();
+    }
+
+    @Override
+    public ZIO<R, Nothing, byte[]> nextBytes(int size) {
+      return UIO.task(() -> randomBytes(random.get(), size)).toZIO();
+    }
+
+    @Override
+    public <A> ZIO<R, Nothing, Sequence<A>> shuffle(Sequence<A> values) {
+      requireNonNull(values);
+      return UIO.task(() -> randomShuffle(random.get(), values)).toZIO();
+    }
+
+    private static char randomChar(Random random) {
+      return PRINTABLE_CHARS.charAt(random.nextInt(PRINTABLE_CHARS.length()));
+    }
+
+    private static String randomString(Random random, int length) {
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = randomChar(random);
       }
+      return new String(chars);
+    }
 
-      private Character randomChar() {
-        return PRINTABLE_CHARS.charAt(random.nextInt(PRINTABLE_CHARS.length()));
+    private static int[] randomInts(Random random, int size) {
+      int[] ints = new int[size];
+      for (int i = 0; i < size; i++) {
+        ints[i] = random.nextInt();
       }
+      return ints;
+    }
+
+    private static byte[] randomBytes(Random random, int size) {
+      byte[] bytes = new byte[size];
+      random.nextBytes(bytes);
+      return bytes;
+    }
 
-      private String randomString(int length) {
-        return IntStream.range(0, length).mapToObj(x -> randomChar()).map(Object::toString).collect(joining());
+    @SuppressWarnings("unchecked")
+    private static <A> Sequence<A> randomShuffle(Random random, Sequence<A> values) {
+      Object[] array = values.stream().toArray();
+      for (int i = array.length - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        Object value = array[i];
+        array[i] = array[j];
+        array[j] = value;
       }
-    };
+      return ImmutableArray.of((A[]) array);
+    }
   }
 }
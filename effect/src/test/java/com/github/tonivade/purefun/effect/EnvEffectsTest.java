@@ -10,10 +10,12 @@ import com.github.tonivade.purefun.runtimes.ConsoleExecutor;
 import com.github.tonivade.purefun.effect.util.ZConsole;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.LinkedList;
 import java.util.Queue;
 
 import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class EnvEffectsTest {
@@ -27,6 +29,19 @@ public class EnvEffectsTest {
     assertEquals("what's your name?\nHello Toni\n", executor.getOutput());
   }
 
+  @Test
+  public void sharedInput() {
+    ConsoleExecutor executor = new ConsoleExecutor().read("Toni").read("Pepe");
+
+    String names = executor.run(IO.task(() -> {
+      String first = ZConsole.<ZConsole>readln().provide(ZConsole.live()).get();
+      String second = ZConsole.<ZConsole>readln().provide(ZConsole.buffered(1024, Duration.ofMinutes(1))).get();
+      return first + " " + second;
+    }));
+
+    assertEquals("Toni Pepe", names);
+  }
+
   @Test
   public void programTest() {
     Queue<String> input = new LinkedList<>(asList("Toni"));
@@ -37,6 +52,54 @@ public class EnvEffectsTest {
     assertEquals(asList("what's your name?", "Hello Toni"), output);
   }
 
+  @Test
+  public void programBuffered() {
+    ConsoleExecutor executor = new ConsoleExecutor().read("Toni");
+
+    String beforeFlush = executor.run(IO.task(() -> {
+      ZConsole console = ZConsole.buffered(1024, Duration.ofMinutes(1));
+      echo().provide(console);
+      String output = executor.getOutput();
+      ZConsole.<ZConsole>flush().provide(console);
+      return output;
+    }));
+
+    assertAll(
+        () -> assertEquals("what's your name?\n", beforeFlush),
+        () -> assertEquals("what's your name?\nHello Toni\n", executor.getOutput()));
+  }
+
+  @Test
+  public void bufferedFlushBySize() {
+    ConsoleExecutor executor = new ConsoleExecutor();
+
+    String output = executor.run(IO.task(() -> {
+      ZConsole console = ZConsole.buffered(10, Duration.ofMinutes(1));
+      ZConsole.<ZConsole>println("short").provide(console);
+      String first = executor.getOutput();
+      ZConsole.<ZConsole>println("long enough").provide(console);
+      return first;
+    }));
+
+    assertAll(
+        () -> assertEquals("", output),
+        () -> assertEquals("short\nlong enough\n", executor.getOutput()));
+  }
+
+  @Test
+  public void bufferedFlushByTime() {
+    ConsoleExecutor executor = new ConsoleExecutor();
+
+    String output = executor.run(IO.task(() -> {
+      ZConsole console = ZConsole.buffered(1024, Duration.ofMillis(50));
+      ZConsole.<ZConsole>println("Hello").provide(console);
+      Thread.sleep(500);
+      return executor.getOutput();
+    }));
+
+    assertEquals("Hello\n", output);
+  }
+
   private ZIO<ZConsole, Throwable, Unit> echo() {
     return ZConsole.println("what's your name?")
         .andThen(ZConsole.readln())
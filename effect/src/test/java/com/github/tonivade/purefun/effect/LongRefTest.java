@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class LongRefTest {
+
+  @Test
+  public void update() {
+    LongRef ref = LongRef.of(10);
+
+    UIO<Long> result = ref.increment().andThen(ref.add(5)).andThen(ref.decrement()).andThen(ref.get());
+
+    assertEquals(15L, result.unsafeRunSync());
+  }
+
+  @Test
+  public void getAndReset() {
+    LongRef ref = LongRef.of(10);
+
+    assertAll(
+        () -> assertEquals(10L, ref.getAndReset().unsafeRunSync()),
+        () -> assertEquals(0L, ref.get().unsafeRunSync()));
+  }
+
+  @Test
+  public void concurrentUpdates() throws Exception {
+    LongRef ref = LongRef.of(0);
+    UIO<?> increment = ref.increment();
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[8];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 10000; j++) {
+          increment.unsafeRunSync();
+        }
+      });
+    }
+    CompletableFuture.allOf(tasks).get(10, TimeUnit.SECONDS);
+
+    assertEquals(80000L, ref.get().unsafeRunSync());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Nothing.nothing;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.type.Either;
+
+public class RefMTest {
+
+  @Test
+  public void updateAndGet() {
+    RefM<String> ref = RefM.of("Hello World!");
+
+    ZIO<Nothing, Nothing, String> result = ref.updateAndGet(value -> ZIO.pure(value.toUpperCase()));
+
+    assertAll(
+        () -> assertEquals(Either.right("HELLO WORLD!"), result.provide(nothing())),
+        () -> assertEquals("HELLO WORLD!", ref.get().unsafeRunSync()));
+  }
+
+  @Test
+  public void getAndUpdate() {
+    RefM<String> ref = RefM.of("Hello World!");
+
+    ZIO<Nothing, Nothing, String> result = ref.getAndUpdate(value -> ZIO.pure(value.toUpperCase()));
+
+    assertAll(
+        () -> assertEquals(Either.right("Hello World!"), result.provide(nothing())),
+        () -> assertEquals("HELLO WORLD!", ref.get().unsafeRunSync()));
+  }
+
+  @Test
+  public void modifyWithEnvironment() {
+    RefM<Integer> ref = RefM.of(10);
+
+    ZIO<Integer, Nothing, String> result =
+        ref.modify(value -> ZIO.<Integer, Integer>access(env -> env + value).map(next -> Tuple.of("new " + next, next)));
+
+    assertAll(
+        () -> assertEquals(Either.right("new 15"), result.provide(5)),
+        () -> assertEquals(15, ref.get().unsafeRunSync()));
+  }
+
+  @Test
+  public void failedUpdateKeepsValue() {
+    RefM<Integer> ref = RefM.of(10);
+
+    ZIO<Nothing, String, Integer> error = ref.updateAndGet(value -> ZIO.raiseError("error"));
+    ZIO<Nothing, Nothing, Integer> exception =
+        ref.updateAndGet(value -> ZIO.<Nothing, Nothing, Integer>fromEither(() -> { throw new UnsupportedOperationException(); }));
+
+    assertAll(
+        () -> assertEquals(Either.left("error"), error.provide(nothing())),
+        () -> assertThrows(UnsupportedOperationException.class, () -> exception.provide(nothing())),
+        () -> assertEquals(10, ref.get().unsafeRunSync()));
+  }
+
+  @Test
+  public void updatesOneAfterAnother() throws Exception {
+    RefM<Integer> ref = RefM.of(0);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ZIO<Nothing, Nothing, Integer> update = ref.updateAndGet(value -> ZIO.<Nothing, Nothing, Integer>fromEither(() -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.yield();
+      running.decrementAndGet();
+      return Either.right(value + 1);
+    }));
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[8];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 1000; j++) {
+          update.provide(nothing());
+        }
+      });
+    }
+    CompletableFuture.allOf(tasks).get(10, TimeUnit.SECONDS);
+
+    assertAll(
+        () -> assertEquals(8000, ref.get().unsafeRunSync()),
+        () -> assertEquals(1, maxRunning.get()));
+  }
+
+  @Test
+  public void interruptedUpdateIsNeverApplied() throws Exception {
+    RefM<Integer> ref = RefM.of(0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Either<Nothing, Integer>> first = CompletableFuture.supplyAsync(
+        () -> ref.<Nothing, Nothing>updateAndGet(value -> ZIO.<Nothing, Nothing, Integer>fromEither(() -> {
+          started.countDown();
+          await(release);
+          return Either.right(value + 1);
+        })).provide(nothing()));
+    started.await();
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread second = new Thread(() -> {
+      try {
+        ref.<Nothing, Nothing>updateAndGet(value -> ZIO.pure(value + 100)).provide(nothing());
+      } catch (Throwable e) {
+        error.set(e);
+      }
+    });
+    second.start();
+    while (second.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+    second.interrupt();
+    second.join();
+    release.countDown();
+
+    assertAll(
+        () -> assertTrue(error.get() instanceof InterruptedException),
+        () -> assertEquals(Either.right(1), first.get(1, TimeUnit.SECONDS)),
+        () -> assertEquals(Either.right(2), ref.<Nothing, Nothing>updateAndGet(value -> ZIO.pure(value + 1)).provide(nothing())));
+  }
+
+  @Test
+  public void handOverQueuedUpdates() throws Exception {
+    RefM<Integer> ref = RefM.of(0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Map<String, Integer> appliedBy = new ConcurrentHashMap<>();
+    ZIO<Nothing, Nothing, Integer> update = ref.updateAndGet(value -> ZIO.<Nothing, Nothing, Integer>fromEither(() -> {
+      appliedBy.merge(Thread.currentThread().getName(), 1, Integer::sum);
+      return Either.right(value + 1);
+    }));
+
+    Thread first = new Thread(() -> ref.<Nothing, Nothing>updateAndGet(value -> ZIO.<Nothing, Nothing, Integer>fromEither(() -> {
+      started.countDown();
+      await(release);
+      return Either.right(value + 1);
+    })).provide(nothing()), "first");
+    first.start();
+    started.await();
+    List<Thread> waiting = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Thread thread = new Thread(() -> update.provide(nothing()), "waiting-" + i);
+      thread.start();
+      waiting.add(thread);
+    }
+    for (Thread thread : waiting) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.yield();
+      }
+    }
+    release.countDown();
+    first.join(1000);
+    for (Thread thread : waiting) {
+      thread.join(1000);
+    }
+
+    assertAll(
+        () -> assertEquals(101, ref.get().unsafeRunSync()),
+        () -> assertTrue(appliedBy.getOrDefault("first", 0) < 100, "applied by first " + appliedBy.get("first")));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
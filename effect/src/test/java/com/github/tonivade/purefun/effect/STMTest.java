@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tonivade.purefun.Unit;
+
+public class STMTest {
+
+  @Test
+  public void commit() {
+    TRef<Integer> from = TRef.of(100);
+    TRef<Integer> to = TRef.of(0);
+
+    UIO<Integer> result = transfer(from, to, 30).andThen(from.get().flatMap(x -> to.get().map(y -> x + y))).commit();
+
+    assertAll(
+        () -> assertEquals(100, result.unsafeRunSync()),
+        () -> assertEquals(70, from.get().commit().unsafeRunSync()),
+        () -> assertEquals(30, to.get().commit().unsafeRunSync()));
+  }
+
+  @Test
+  public void nothingChangesUntilCommit() {
+    TRef<Integer> ref = TRef.of(1);
+
+    STM<Integer> update = ref.updateAndGet(x -> x + 1);
+
+    assertEquals(1, ref.get().commit().unsafeRunSync());
+    assertEquals(2, update.commit().unsafeRunSync());
+  }
+
+  @Test
+  public void exceptionDiscardsChanges() {
+    TRef<Integer> ref = TRef.of(1);
+
+    UIO<Integer> program = ref.set(10).andThen(ref.get().map(x -> x / 0)).commit();
+
+    assertAll(
+        () -> assertThrows(ArithmeticException.class, program::unsafeRunSync),
+        () -> assertEquals(1, ref.get().commit().unsafeRunSync()));
+  }
+
+  @Test
+  public void retryWaitsForChange() throws Exception {
+    TRef<Integer> balance = TRef.of(0);
+    AtomicInteger attempts = new AtomicInteger();
+
+    CompletableFuture<Integer> withdraw = new CompletableFuture<>();
+    Thread thread = new Thread(() -> withdraw.complete(
+        balance.get().flatMap(x -> { attempts.incrementAndGet(); return STM.check(x >= 50); })
+          .andThen(balance.updateAndGet(x -> x - 50)).commit().unsafeRunSync()));
+    thread.start();
+    awaitRetry(thread, attempts, 1);
+    boolean waiting = !withdraw.isDone();
+    balance.set(30).commit().unsafeRunSync();
+    awaitRetry(thread, attempts, 2);
+    boolean stillWaiting = !withdraw.isDone();
+    balance.updateAndGet(x -> x + 30).commit().unsafeRunSync();
+
+    assertAll(
+        () -> assertTrue(waiting),
+        () -> assertTrue(stillWaiting),
+        () -> assertEquals(10, withdraw.get(1, TimeUnit.SECONDS)));
+  }
+
+  @Test
+  public void orElse() {
+    TRef<Integer> first = TRef.of(0);
+    TRef<Integer> second = TRef.of(0);
+
+    STM<String> program = first.set(1).andThen(STM.<String>retry())
+        .orElse(second.set(2).andThen(STM.pure("second")));
+
+    assertAll(
+        () -> assertEquals("second", program.commit().unsafeRunSync()),
+        () -> assertEquals(0, first.get().commit().unsafeRunSync()),
+        () -> assertEquals(2, second.get().commit().unsafeRunSync()));
+  }
+
+  @Test
+  public void concurrentTransfers() throws Exception {
+    TRef<Integer> inventory = TRef.of(1000);
+    TRef<Integer> reserved = TRef.of(0);
+    TRef<Integer> available = TRef.of(0);
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[4];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 1000; j++) {
+          int amount = ThreadLocalRandom.current().nextInt(1, 5);
+          if (j % 2 == 0) {
+            transfer(inventory, reserved, amount).orElse(STM.pure(Unit.unit())).commit().unsafeRunSync();
+          } else {
+            transfer(reserved, available, amount).orElse(STM.pure(Unit.unit())).commit().unsafeRunSync();
+          }
+        }
+      });
+    }
+    CompletableFuture.allOf(tasks).get(10, TimeUnit.SECONDS);
+
+    int total = inventory.get().flatMap(
+        x -> reserved.get().flatMap(y -> available.get().map(z -> x + y + z))).commit().unsafeRunSync();
+
+    assertEquals(1000, total);
+  }
+
+  @Test
+  public void readsAreConsistent() throws Exception {
+    TRef<Integer> first = TRef.of(500);
+    TRef<Integer> second = TRef.of(500);
+
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+      for (int i = 0; i < 2000; i++) {
+        int amount = i % 2 == 0 ? 3 : -3;
+        first.updateAndGet(x -> x - amount).andThen(second.updateAndGet(x -> x + amount)).commit().unsafeRunSync();
+      }
+    });
+    boolean consistent = true;
+    while (!writer.isDone()) {
+      int total = first.get().flatMap(x -> second.get().map(y -> x + y)).commit().unsafeRunSync();
+      consistent &= total == 1000;
+    }
+    writer.get(10, TimeUnit.SECONDS);
+
+    assertTrue(consistent);
+  }
+
+  private static void awaitRetry(Thread thread, AtomicInteger attempts, int expected) {
+    while (attempts.get() < expected || thread.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+  }
+
+  private static STM<Unit> transfer(TRef<Integer> from, TRef<Integer> to, int amount) {
+    return from.get()
+        .flatMap(balance -> STM.check(balance >= amount))
+        .andThen(from.updateAndGet(x -> x - amount))
+        .andThen(to.updateAndGet(x -> x + amount))
+        .map(ignore -> Unit.unit());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tonivade.purefun.data.ImmutableArray;
+
+public class ZHubTest {
+
+  @Test
+  public void broadcast() {
+    ZHub<String> hub = ZHub.bounded(10);
+    ZQueue<String> first = hub.subscribe().unsafeRunSync();
+    ZQueue<String> second = hub.subscribe().unsafeRunSync();
+
+    boolean published = hub.publish("a").andThen(hub.publishAll(ImmutableArray.of("b", "c"))).unsafeRunSync();
+
+    assertAll(
+        () -> assertTrue(published),
+        () -> assertEquals(ImmutableArray.of("a", "b", "c"), first.takeUpTo(10).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of("a", "b", "c"), second.takeUpTo(10).unsafeRunSync()));
+  }
+
+  @Test
+  public void unsubscribe() {
+    ZHub<String> hub = ZHub.bounded(10);
+    ZQueue<String> first = hub.subscribe().unsafeRunSync();
+    ZQueue<String> second = hub.subscribe().unsafeRunSync();
+
+    hub.unsubscribe(second).andThen(hub.publish("a")).unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals(1, hub.subscribers().unsafeRunSync()),
+        () -> assertEquals(1, first.size().unsafeRunSync()),
+        () -> assertEquals(0, second.size().unsafeRunSync()));
+  }
+
+  @Test
+  public void droppingSubscriber() {
+    ZHub<Integer> hub = ZHub.dropping(1);
+    ZQueue<Integer> slow = hub.subscribe().unsafeRunSync();
+
+    boolean first = hub.publish(1).unsafeRunSync();
+    ZQueue<Integer> fast = hub.subscribe().unsafeRunSync();
+    boolean second = hub.publish(2).unsafeRunSync();
+
+    assertAll(
+        () -> assertTrue(first),
+        () -> assertFalse(second),
+        () -> assertEquals(ImmutableArray.of(1), slow.takeUpTo(10).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of(2), fast.takeUpTo(10).unsafeRunSync()));
+  }
+}
@@ -7,6 +7,7 @@ package com.github.tonivade.purefun.effect;
 import static com.github.tonivade.purefun.Function1.identity;
 import static com.github.tonivade.purefun.Nothing.nothing;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -15,9 +16,12 @@ import static org.mockito.Mockito.when;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.github.tonivade.purefun.Higher1;
 import com.github.tonivade.purefun.Producer;
+import com.github.tonivade.purefun.Unit;
 import com.github.tonivade.purefun.instances.IOInstances;
 import com.github.tonivade.purefun.monad.IO;
 import com.github.tonivade.purefun.type.Try;
@@ -26,8 +30,12 @@ import org.junit.jupiter.api.Test;
 
 import com.github.tonivade.purefun.Function1;
 import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.concurrent.CircuitBreaker;
 import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.ResourcePool;
+import com.github.tonivade.purefun.data.ImmutableArray;
 import com.github.tonivade.purefun.data.ImmutableList;
+import com.github.tonivade.purefun.data.Sequence;
 import com.github.tonivade.purefun.instances.FutureInstances;
 import com.github.tonivade.purefun.type.Either;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -143,6 +151,247 @@ public class ZIOTest {
     verify(resultSet).close();
   }
 
+  @Test
+  public void bracketPool() {
+    ResourcePool<StringBuilder> pool = ResourcePool.builder(StringBuilder::new, builder -> { }).maxSize(1).build();
+
+    ZIO<Nothing, Throwable, String> bracket = ZIO.bracket(pool, builder -> ZIO.task(() -> builder.append("a").toString()));
+
+    assertEquals(Either.right("a"), bracket.provide(nothing()));
+    assertEquals(Either.right("aa"), bracket.provide(nothing()));
+    assertEquals(1, pool.metrics().idle());
+  }
+
+  @Test
+  public void acquireInterrupted() throws InterruptedException {
+    ResourcePool<StringBuilder> pool = ResourcePool.builder(StringBuilder::new, builder -> { }).maxSize(1).build();
+    StringBuilder borrowed = ZIOModule.<Nothing, StringBuilder>acquire(pool).provide(nothing()).get();
+
+    AtomicReference<Either<Throwable, String>> result = new AtomicReference<>();
+    Thread waiting = new Thread(() -> result.set(ZIO.bracket(pool, builder -> ZIO.<Nothing, Throwable, String>pure("a")).provide(nothing())));
+    waiting.start();
+    while (pool.metrics().waiters() == 0) {
+      Thread.yield();
+    }
+    waiting.interrupt();
+    waiting.join();
+    pool.release(borrowed);
+
+    assertTrue(result.get().getLeft() instanceof InterruptedException);
+    assertEquals(0, pool.metrics().waiters());
+    assertEquals(0, pool.metrics().borrowed());
+    assertEquals(1, pool.metrics().idle());
+  }
+
+  @Test
+  public void protect() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1).build();
+
+    ZIO<Nothing, Throwable, String> zio = ZIO.protect(breaker, ZIO.raiseError(new UnsupportedOperationException()));
+    Either<Throwable, String> first = zio.provide(nothing());
+    Either<Throwable, String> second = zio.provide(nothing());
+
+    assertTrue(first.getLeft() instanceof UnsupportedOperationException);
+    assertTrue(second.getLeft() instanceof CircuitBreaker.OpenException);
+  }
+
+  @Test
+  public void protectException() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1).build();
+
+    ZIO<Nothing, Throwable, String> zio = ZIO.protect(breaker, ZIO.<Nothing, Throwable, String>pure("a").map(value -> {
+      throw new UnsupportedOperationException();
+    }));
+
+    assertThrows(UnsupportedOperationException.class, () -> zio.provide(nothing()));
+    assertEquals(CircuitBreaker.Status.OPEN, breaker.status());
+  }
+
+  @Test
+  public void repeatAtFixedRate() {
+    AtomicInteger counter = new AtomicInteger();
+    ZIO<Nothing, Throwable, Unit> task = ZIO.exec(() -> {
+      if (counter.incrementAndGet() == 100000) {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    Either<Throwable, Unit> result = task.repeatAtFixedRate(Duration.ofNanos(1)).provide(nothing());
+
+    assertTrue(result.getLeft() instanceof UnsupportedOperationException);
+    assertEquals(100000, counter.get());
+  }
+
+  @Test
+  public void repeatWithFixedDelay() {
+    AtomicInteger counter = new AtomicInteger();
+    ZIO<Nothing, Throwable, Unit> task = ZIO.exec(() -> {
+      if (counter.incrementAndGet() == 3) {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    Either<Throwable, Unit> result = task.repeatWithFixedDelay(Duration.ofMillis(10)).provide(nothing());
+
+    assertTrue(result.getLeft() instanceof UnsupportedOperationException);
+    assertEquals(3, counter.get());
+  }
+
+  @Test
+  public void zipPar() {
+    ZIO<Nothing, Throwable, String> left = ZIO.<Nothing>sleep(Duration.ofMillis(200)).andThen(ZIO.pure("a"));
+    ZIO<Nothing, Throwable, String> right = ZIO.<Nothing>sleep(Duration.ofMillis(200)).andThen(ZIO.pure("b"));
+
+    long start = System.nanoTime();
+    Either<Throwable, String> result = ZIO.zipPar(left, right, String::concat).provide(nothing());
+    long elapsed = System.nanoTime() - start;
+
+    assertEquals(Either.right("ab"), result);
+    assertTrue(elapsed < Duration.ofMillis(380).toNanos(), "elapsed " + elapsed);
+  }
+
+  @Test
+  public void foreachPar() {
+    ZIO<Nothing, Throwable, Sequence<Integer>> result = ZIO.foreachPar(ImmutableList.of(30, 20, 10),
+        delay -> ZIO.<Nothing>sleep(Duration.ofMillis(delay)).andThen(ZIO.pure(delay)));
+
+    assertEquals(Either.right(ImmutableArray.of(30, 20, 10)), result.provide(nothing()));
+  }
+
+  @Test
+  public void foreachParN() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger max = new AtomicInteger();
+
+    ZIO<Nothing, Throwable, Sequence<Integer>> result = ZIO.foreachParN(2, ImmutableList.of(1, 2, 3, 4, 5, 6),
+        i -> ZIO.<Nothing, Integer>task(() -> {
+          max.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(20);
+          running.decrementAndGet();
+          return i * 2;
+        }));
+
+    assertEquals(Either.right(ImmutableArray.of(2, 4, 6, 8, 10, 12)), result.provide(nothing()));
+    assertEquals(2, max.get());
+  }
+
+  @Test
+  public void foreachParCancelOnError() {
+    AtomicInteger completed = new AtomicInteger();
+
+    ZIO<Nothing, String, Sequence<Integer>> result = ZIO.foreachParN(2, ImmutableList.of(1, 2, 3, 4),
+        i -> i == 2
+            ? ZIO.<Nothing, String, Integer>raiseError("error")
+            : ZIO.<Nothing>sleep(Duration.ofSeconds(1))
+                .<String>mapError(Throwable::toString).map(ignore -> completed.incrementAndGet()));
+
+    long start = System.nanoTime();
+    Either<String, Sequence<Integer>> either = result.provide(nothing());
+    long elapsed = System.nanoTime() - start;
+
+    assertEquals(Either.left("error"), either);
+    assertTrue(elapsed < Duration.ofMillis(500).toNanos(), "elapsed " + elapsed);
+    assertEquals(0, completed.get());
+  }
+
+  @Test
+  public void foreachParCancelBusyBranch() throws InterruptedException {
+    AtomicInteger steps = new AtomicInteger();
+    ZIO<Nothing, String, Integer> busy = busy(steps);
+    ZIO<Nothing, String, Integer> failure =
+        ZIO.<Nothing>sleep(Duration.ofMillis(50)).<String>mapError(Throwable::toString).andThen(ZIO.raiseError("error"));
+
+    Either<String, Sequence<Integer>> result =
+        ZIO.foreachParN(2, ImmutableList.of(0, 1), index -> index == 0 ? busy : failure).provide(nothing());
+    Thread.sleep(100);
+    int stopped = steps.get();
+    Thread.sleep(100);
+
+    assertEquals(Either.left("error"), result);
+    assertEquals(stopped, steps.get());
+  }
+
+  @Test
+  public void race() throws InterruptedException {
+    AtomicInteger released = new AtomicInteger();
+    ZIO<Nothing, Throwable, String> slow = ZIO.bracket(ZIO.pure("slow"),
+        value -> ZIO.<Nothing>sleep(Duration.ofSeconds(2)).andThen(ZIO.pure(value)), value -> released.incrementAndGet());
+    ZIO<Nothing, Throwable, String> fast = ZIO.<Nothing>sleep(Duration.ofMillis(50)).andThen(ZIO.pure("fast"));
+
+    long start = System.nanoTime();
+    Either<Throwable, String> result = slow.race(fast).provide(nothing());
+    long elapsed = System.nanoTime() - start;
+    for (int i = 0; i < 100 && released.get() == 0; i++) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(Either.right("fast"), result);
+    assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "elapsed " + elapsed);
+    assertEquals(1, released.get());
+  }
+
+  @Test
+  public void raceCancelAcquire() throws InterruptedException {
+    AtomicInteger released = new AtomicInteger();
+    ZIO<Nothing, Throwable, String> acquire = ZIO.task(() -> {
+      long end = System.nanoTime() + Duration.ofMillis(300).toNanos();
+      while (System.nanoTime() < end) {
+        Thread.yield();
+      }
+      return "slow";
+    });
+    ZIO<Nothing, Throwable, String> slow = ZIO.bracket(acquire, ZIO::<Nothing, Throwable, String>pure, value -> released.incrementAndGet());
+    ZIO<Nothing, Throwable, String> fast = ZIO.<Nothing>sleep(Duration.ofMillis(50)).andThen(ZIO.pure("fast"));
+
+    Either<Throwable, String> result = slow.race(fast).provide(nothing());
+    for (int i = 0; i < 100 && released.get() == 0; i++) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(Either.right("fast"), result);
+    assertEquals(1, released.get());
+  }
+
+  @Test
+  public void raceAllFailures() {
+    ZIO<Nothing, String, String> result = ZIO.raceAll(ImmutableList.of(
+        ZIO.<Nothing>sleep(Duration.ofMillis(100)).<String>mapError(Throwable::toString).andThen(ZIO.raiseError("slow")),
+        ZIO.raiseError("fast")));
+
+    assertEquals(Either.left("slow"), result.provide(nothing()));
+  }
+
+  @Test
+  public void hedge() {
+    AtomicInteger copies = new AtomicInteger();
+    ZIO<Nothing, Throwable, Integer> request = ZIO.<Nothing, Integer>task(copies::incrementAndGet)
+        .flatMap(copy -> ZIO.<Nothing>sleep(Duration.ofMillis(copy == 1 ? 2000 : 10)).andThen(ZIO.pure(copy)));
+
+    long start = System.nanoTime();
+    Either<Throwable, Integer> result = request.hedge(Duration.ofMillis(100), 3).provide(nothing());
+    long elapsed = System.nanoTime() - start;
+
+    assertEquals(Either.right(2), result);
+    assertEquals(2, copies.get());
+    assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "elapsed " + elapsed);
+  }
+
+  @Test
+  public void hedgeAfterFailure() {
+    AtomicInteger copies = new AtomicInteger();
+    ZIO<Nothing, String, Integer> request = ZIO.<Nothing, String, Integer>fromEither(() -> {
+      int copy = copies.incrementAndGet();
+      return copy == 1 ? Either.left("error") : Either.right(copy);
+    });
+
+    long start = System.nanoTime();
+    Either<String, Integer> result = request.hedge(Duration.ofSeconds(1), 2).provide(nothing());
+    long elapsed = System.nanoTime() - start;
+
+    assertEquals(Either.right(2), result);
+    assertTrue(elapsed < Duration.ofMillis(500).toNanos(), "elapsed " + elapsed);
+  }
+
   @Test
   public void safeRunAsync() {
     Ref<ImmutableList<String>> ref = Ref.of(ImmutableList.empty());
@@ -260,6 +509,56 @@ public class ZIOTest {
     assertEquals(Try.success(705082704), futureSum.await());
   }
 
+  @Test
+  public void stackSafetyLeftNested() {
+    ZIO<Nothing, String, Integer> flatMap = ZIO.pure(0);
+    ZIO<Nothing, String, Integer> foldM = ZIO.pure(0);
+    for (int i = 0; i < 100000; i++) {
+      flatMap = flatMap.flatMap(x -> ZIO.pure(x + 1));
+      foldM = foldM.foldM(ZIO::<Nothing, String, Integer>raiseError, x -> ZIO.pure(x + 1));
+    }
+
+    assertEquals(Either.right(100000), flatMap.provide(nothing()));
+    assertEquals(Either.right(100000), foldM.provide(nothing()));
+  }
+
+  @Test
+  public void errorSkipsFlatMap() {
+    AtomicInteger counter = new AtomicInteger();
+    ZIO<Nothing, String, Integer> zio = ZIO.<Nothing, String, Integer>raiseError("error");
+    for (int i = 0; i < 100000; i++) {
+      zio = zio.map(x -> counter.incrementAndGet());
+    }
+
+    Either<String, Integer> result = zio.flatMapError(e -> ZIO.raiseError(e + "!")).provide(nothing());
+
+    assertEquals(Either.left("error!"), result);
+    assertEquals(0, counter.get());
+  }
+
+  @Test
+  public void redeemException() {
+    ZIO<Nothing, Nothing, Integer> fail = ZIO.<Nothing, Nothing, Integer>pure(1).map(x -> {
+      throw new UnsupportedOperationException();
+    });
+
+    Either<Throwable, Integer> result = ZIO.redeem(fail).provide(nothing());
+
+    assertTrue(result.getLeft() instanceof UnsupportedOperationException);
+  }
+
+  @Test
+  public void bracketReleaseOnException(@Mock ResultSet resultSet) throws SQLException {
+    ZIO<Nothing, Throwable, String> bracket = ZIO.bracket(open(resultSet), rs -> {
+      throw new UnsupportedOperationException();
+    });
+
+    Either<Throwable, String> result = ZIO.redeem(bracket.recover(Throwable::getMessage)).provide(nothing());
+
+    assertTrue(result.getLeft() instanceof UnsupportedOperationException);
+    verify(resultSet).close();
+  }
+
   private ZIO<Nothing, Throwable, Integer> parseInt(String string) {
     return ZIO.task(() -> Integer.parseInt(string));
   }
@@ -278,4 +577,9 @@ public class ZIOTest {
     }
     return UIO.defer(() -> sum( n - 1, sum + n));
   }
+
+  private static ZIO<Nothing, String, Integer> busy(AtomicInteger steps) {
+    return ZIO.<Nothing, String, Integer>fromEither(() -> Either.right(steps.incrementAndGet()))
+        .flatMap(step -> step < 100000000 ? busy(steps) : ZIO.pure(step));
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static com.github.tonivade.purefun.Nothing.nothing;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.Tuple2;
+import com.github.tonivade.purefun.effect.util.ZConsole;
+import com.github.tonivade.purefun.effect.util.ZRandom;
+import com.github.tonivade.purefun.type.Either;
+
+public class ZLayerTest {
+
+  private final AtomicInteger counter = new AtomicInteger();
+
+  @Test
+  public void memoized() {
+    ZLayer<Nothing, Throwable, Environment> layer =
+        ZLayer.fromZIO(ZIO.task(() -> new Environment(counter.incrementAndGet())));
+    ZIO<Nothing, Throwable, Integer> program =
+        ZIO.<Environment, Throwable, Integer>accessM(env -> ZIO.pure(env.getValue())).provideLayer(layer);
+
+    Either<Throwable, Integer> first = program.provide(nothing());
+    Either<Throwable, Integer> second = program.provide(nothing());
+
+    assertAll(
+        () -> assertEquals(Either.right(1), first),
+        () -> assertEquals(Either.right(1), second),
+        () -> assertEquals(1, counter.get()));
+  }
+
+  @Test
+  public void failureNotMemoized() {
+    ZLayer<Nothing, String, Environment> layer = ZLayer.fromZIO(ZIO.fromEither(() -> counter.incrementAndGet() == 1
+        ? Either.left("error") : Either.right(new Environment(counter.get()))));
+
+    Either<String, Environment> first = layer.build().provide(nothing());
+    Either<String, Environment> second = layer.build().provide(nothing());
+    Either<String, Environment> third = layer.build().provide(nothing());
+
+    assertAll(
+        () -> assertEquals(Either.left("error"), first),
+        () -> assertEquals(2, second.get().getValue()),
+        () -> assertSame(second.get(), third.get()));
+  }
+
+  @Test
+  public void vertical() {
+    ZLayer<Nothing, Nothing, Integer> config = ZLayer.succeed(10);
+    ZLayer<Integer, Nothing, Environment> environment = ZLayer.fromFunction(Environment::new);
+
+    ZIO<Nothing, Nothing, Integer> program =
+        ZIO.<Environment, Integer>access(Environment::getValue).provideLayer(config.andThen(environment));
+
+    assertEquals(Either.right(10), program.provide(nothing()));
+  }
+
+  @Test
+  public void horizontal() {
+    ZLayer<Nothing, Throwable, Environment> slow = ZLayer.fromZIO(
+        ZIO.<Nothing>sleep(Duration.ofMillis(200)).andThen(ZIO.task(() -> new Environment(1))));
+    ZLayer<Nothing, Throwable, Environment> other = ZLayer.fromZIO(
+        ZIO.<Nothing>sleep(Duration.ofMillis(200)).andThen(ZIO.task(() -> new Environment(2))));
+
+    long start = System.nanoTime();
+    Either<Throwable, Integer> result = slow.zip(other, (a, b) -> a.getValue() + b.getValue()).build().provide(nothing());
+    long elapsed = System.nanoTime() - start;
+
+    assertAll(
+        () -> assertEquals(Either.right(3), result),
+        () -> assertTrue(elapsed < Duration.ofMillis(380).toNanos(), "elapsed " + elapsed));
+  }
+
+  @Test
+  public void sharedDependency() {
+    ZLayer<Nothing, Throwable, Integer> config = ZLayer.fromZIO(ZIO.task(counter::incrementAndGet));
+    ZLayer<Nothing, Throwable, Environment> left = config.andThen(ZLayer.fromFunction(Environment::new));
+    ZLayer<Nothing, Throwable, Environment> right = config.andThen(ZLayer.fromFunction(Environment::new));
+
+    Either<Throwable, Tuple2<Environment, Environment>> result = left.zip(right, Tuple::of).build().provide(nothing());
+
+    assertAll(
+        () -> assertEquals(1, result.get().get1().getValue()),
+        () -> assertEquals(1, result.get().get2().getValue()),
+        () -> assertEquals(1, counter.get()));
+  }
+
+  @Test
+  public void servicesAreShared() {
+    ZRandom random = ZRandom.test(1L);
+    ZConsole console = ZConsole.test(new LinkedList<>(), new LinkedList<>());
+
+    assertAll(
+        () -> assertSame(random.random(), random.random()),
+        () -> assertSame(random.random().nextInt(), random.random().nextInt()),
+        () -> assertSame(console.console(), console.console()),
+        () -> assertSame(console.console().readln(), console.console().readln()));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.effect;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
+import com.github.tonivade.purefun.type.Option;
+
+public class ZQueueTest {
+
+  @Test
+  public void offerAndTake() {
+    ZQueue<String> queue = ZQueue.bounded(2);
+
+    UIO<String> program = queue.offer("a").andThen(queue.offer("b")).andThen(queue.take());
+
+    assertAll(
+        () -> assertEquals("a", program.unsafeRunSync()),
+        () -> assertEquals(Option.some("b"), queue.poll().unsafeRunSync()),
+        () -> assertEquals(Option.none(), queue.poll().unsafeRunSync()));
+  }
+
+  @Test
+  public void boundedWaitsUntilTake() throws Exception {
+    ZQueue<Integer> queue = ZQueue.bounded(1);
+    queue.offer(1).unsafeRunSync();
+
+    CompletableFuture<Boolean> offer = new CompletableFuture<>();
+    runUntilWaiting(() -> offer.complete(queue.offer(2).unsafeRunSync()));
+    boolean waiting = !offer.isDone();
+
+    assertAll(
+        () -> assertTrue(waiting),
+        () -> assertEquals(1, queue.take().unsafeRunSync()),
+        () -> assertTrue(offer.get(1, TimeUnit.SECONDS)),
+        () -> assertEquals(2, queue.take().unsafeRunSync()));
+  }
+
+  @Test
+  public void takeWaitsUntilOffer() throws Exception {
+    ZQueue<Integer> queue = ZQueue.bounded(1);
+
+    CompletableFuture<Integer> take = new CompletableFuture<>();
+    runUntilWaiting(() -> take.complete(queue.take().unsafeRunSync()));
+    boolean waiting = !take.isDone();
+    queue.offer(1).unsafeRunSync();
+
+    assertAll(
+        () -> assertTrue(waiting),
+        () -> assertEquals(1, take.get(1, TimeUnit.SECONDS)));
+  }
+
+  @Test
+  public void dropping() {
+    ZQueue<Integer> queue = ZQueue.dropping(2);
+
+    assertAll(
+        () -> assertTrue(queue.offer(1).unsafeRunSync()),
+        () -> assertTrue(queue.offer(2).unsafeRunSync()),
+        () -> assertFalse(queue.offer(3).unsafeRunSync()),
+        () -> assertFalse(queue.offerAll(ImmutableArray.of(4, 5)).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of(1, 2), queue.takeUpTo(10).unsafeRunSync()));
+  }
+
+  @Test
+  public void sliding() {
+    ZQueue<Integer> queue = ZQueue.sliding(2);
+
+    assertAll(
+        () -> assertTrue(queue.offer(1).unsafeRunSync()),
+        () -> assertTrue(queue.offer(2).unsafeRunSync()),
+        () -> assertTrue(queue.offer(3).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of(2, 3), queue.takeUpTo(10).unsafeRunSync()),
+        () -> assertTrue(queue.offerAll(ImmutableArray.of(4, 5, 6, 7, 8)).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of(7, 8), queue.takeUpTo(10).unsafeRunSync()));
+  }
+
+  @Test
+  public void offerAllAndTakeUpTo() {
+    ZQueue<Integer> queue = ZQueue.bounded(10);
+
+    UIO<Sequence<Integer>> program =
+        queue.offerAll(ImmutableArray.of(1, 2, 3, 4, 5)).andThen(queue.takeUpTo(3));
+
+    assertAll(
+        () -> assertEquals(ImmutableArray.of(1, 2, 3), program.unsafeRunSync()),
+        () -> assertEquals(2, queue.size().unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.of(4, 5), queue.takeUpTo(3).unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.empty(), queue.takeUpTo(3).unsafeRunSync()));
+  }
+
+  @Test
+  public void takeUpToZero() {
+    ZQueue<Integer> queue = ZQueue.bounded(2);
+
+    UIO<Sequence<Integer>> program = queue.offer(1).andThen(queue.takeUpTo(0));
+
+    assertAll(
+        () -> assertEquals(ImmutableArray.empty(), program.unsafeRunSync()),
+        () -> assertEquals(ImmutableArray.empty(), ZQueue.<Integer>bounded(2).takeUpTo(0).unsafeRunSync()),
+        () -> assertEquals(1, queue.size().unsafeRunSync()));
+  }
+
+  @Test
+  public void boundedOfferAllWaitsForSpace() throws Exception {
+    ZQueue<Integer> queue = ZQueue.bounded(2);
+
+    CompletableFuture<Boolean> offer =
+        CompletableFuture.supplyAsync(() -> queue.offerAll(ImmutableArray.of(1, 2, 3, 4, 5)).unsafeRunSync());
+
+    int sum = 0;
+    for (int i = 0; i < 5; i++) {
+      sum += queue.take().unsafeRunSync();
+    }
+
+    assertEquals(15, sum);
+    assertTrue(offer.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void producersAndConsumers() throws Exception {
+    ZQueue<Integer> queue = ZQueue.bounded(16);
+    AtomicLong total = new AtomicLong();
+    int producers = 4;
+    int consumers = 4;
+    int values = 10000;
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[producers + consumers];
+    for (int i = 0; i < producers; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 1; j <= values; j++) {
+          queue.offer(j).unsafeRunSync();
+        }
+      });
+    }
+    for (int i = 0; i < consumers; i++) {
+      tasks[producers + i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < values; j++) {
+          total.addAndGet(queue.take().unsafeRunSync());
+        }
+      });
+    }
+    CompletableFuture.allOf(tasks).get(10, TimeUnit.SECONDS);
+
+    assertAll(
+        () -> assertEquals((long) producers * values * (values + 1) / 2, total.get()),
+        () -> assertEquals(0, queue.size().unsafeRunSync()));
+  }
+
+  private static void runUntilWaiting(Runnable task) {
+    Thread thread = new Thread(task);
+    thread.start();
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+  }
+}
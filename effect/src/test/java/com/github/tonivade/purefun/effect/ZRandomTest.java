@@ -5,11 +5,17 @@
 package com.github.tonivade.purefun.effect;
 
 import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
 import com.github.tonivade.purefun.type.Either;
 import com.github.tonivade.purefun.effect.util.ZRandom;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ZRandomTest {
 
@@ -75,4 +81,104 @@ public class ZRandomTest {
 
     assertEquals(Either.right(5), provide.map(String::length));
   }
+
+  @Test
+  public void nextInts() {
+    ZIO<ZRandom, Nothing, int[]> nextInts = ZRandom.nextInts(3);
+
+    int[] first = nextInts.provide(ZRandom.test(1L)).get();
+    int[] second = nextInts.provide(ZRandom.test(1L)).get();
+
+    assertEquals(-1155869325, first[0]);
+    assertArrayEquals(first, second);
+  }
+
+  @Test
+  public void nextBytes() {
+    ZIO<ZRandom, Nothing, byte[]> nextBytes = ZRandom.nextBytes(16);
+
+    byte[] first = nextBytes.provide(ZRandom.test(1L)).get();
+    byte[] second = nextBytes.provide(ZRandom.test(1L)).get();
+
+    assertEquals(16, first.length);
+    assertArrayEquals(first, second);
+  }
+
+  @Test
+  public void shuffle() {
+    ImmutableArray<Integer> values = ImmutableArray.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    ZIO<ZRandom, Nothing, Sequence<Integer>> shuffle = ZRandom.shuffle(values);
+
+    Sequence<Integer> first = shuffle.provide(ZRandom.test(1L)).get();
+    Sequence<Integer> second = shuffle.provide(ZRandom.test(1L)).get();
+    Sequence<Integer> live = shuffle.provide(ZRandom.live()).get();
+
+    assertEquals(first, second);
+    assertArrayEquals(values.stream().toArray(), first.stream().sorted().toArray());
+    assertArrayEquals(values.stream().toArray(), live.stream().sorted().toArray());
+  }
+
+  @Test
+  public void nextIntsLive() {
+    ZIO<ZRandom, Nothing, int[]> nextInts = ZRandom.nextInts(1000);
+
+    int[] ints = nextInts.provide(ZRandom.live()).get();
+
+    assertEquals(1000, ints.length);
+    assertTrue(Arrays.stream(ints).distinct().count() > 1);
+  }
+
+  @Test
+  public void defaultMethods() {
+    ZRandom random = new ZRandom() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <R extends ZRandom> ZRandom.Service<R> random() {
+        return (ZRandom.Service<R>) new Counter();
+      }
+    };
+
+    int[] ints = ZRandom.nextInts(3).provide(random).get();
+    byte[] bytes = ZRandom.nextBytes(5).provide(random).get();
+    Sequence<Integer> shuffle = ZRandom.<ZRandom, Integer>shuffle(ImmutableArray.of(1, 2, 3)).provide(random).get();
+
+    assertArrayEquals(new int[] { 0, 1, 2 }, ints);
+    assertArrayEquals(new byte[] { 0, 0, 0, 0, 1 }, bytes);
+    assertEquals(ImmutableArray.of(2, 3, 1), shuffle);
+  }
+
+  private static final class Counter implements ZRandom.Service<ZRandom> {
+
+    private int next;
+
+    @Override
+    public ZIO<ZRandom, Nothing, Integer> nextInt() {
+      return UIO.task(() -> next++).toZIO();
+    }
+
+    @Override
+    public ZIO<ZRandom, Nothing, Long> nextLong() {
+      return nextInt().map(Integer::longValue);
+    }
+
+    @Override
+    public ZIO<ZRandom, Nothing, Float> nextFloat() {
+      return ZIO.pure(0f);
+    }
+
+    @Override
+    public ZIO<ZRandom, Nothing, Double> nextDouble() {
+      return ZIO.pure(0d);
+    }
+
+    @Override
+    public ZIO<ZRandom, Nothing, Character> nextChar() {
+      return ZIO.pure('a');
+    }
+
+    @Override
+    public ZIO<ZRandom, Nothing, String> nextString(int length) {
+      return ZIO.pure("");
+    }
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Producer;
+
+/**
+ * Copy of the previous {@code IO} evaluator (the {@code LinkedList} based one), reduced to the nodes
+ * needed by the benchmarks, so both interpreters can be compared in the same run.
+ */
+interface BaselineIO<T> {
+
+  T unsafeRunSync();
+
+  default <R> BaselineIO<R> map(Function1<T, R> map) {
+    return flatMap(map.andThen(BaselineIO::pure));
+  }
+
+  default <R> BaselineIO<R> flatMap(Function1<T, BaselineIO<R>> map) {
+    return new FlatMapped<>(Producer.cons(this), map);
+  }
+
+  static <T> BaselineIO<T> pure(T value) {
+    return new Pure<>(value);
+  }
+
+  static <T> BaselineIO<T> suspend(Producer<BaselineIO<T>> lazy) {
+    return new Suspend<>(lazy);
+  }
+
+  final class Pure<T> implements BaselineIO<T> {
+
+    private final T value;
+
+    private Pure(T value) {
+      this.value = requireNonNull(value);
+    }
+
+    @Override
+    public T unsafeRunSync() {
+      return value;
+    }
+  }
+
+  final class FlatMapped<T, R> implements BaselineIO<R> {
+
+    private final Producer<BaselineIO<T>> current;
+    private final Function1<T, BaselineIO<R>> next;
+
+    private FlatMapped(Producer<BaselineIO<T>> current, Function1<T, BaselineIO<R>> next) {
+      this.current = requireNonNull(current);
+      this.next = requireNonNull(next);
+    }
+
+    @Override
+    public R unsafeRunSync() {
+      return evaluate(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R1> BaselineIO<R1> flatMap(Function1<R, BaselineIO<R1>> map) {
+      return new FlatMapped<>(() -> (BaselineIO<R>) start(), r -> new FlatMapped<>(() -> run((T) r), map::apply));
+    }
+
+    private BaselineIO<T> start() {
+      return current.get();
+    }
+
+    private BaselineIO<R> run(T value) {
+      return next.apply(value);
+    }
+  }
+
+  final class Suspend<T> implements BaselineIO<T> {
+
+    private final Producer<BaselineIO<T>> lazy;
+
+    private Suspend(Producer<BaselineIO<T>> lazy) {
+      this.lazy = requireNonNull(lazy);
+    }
+
+    @Override
+    public T unsafeRunSync() {
+      return collapse(this).unsafeRunSync();
+    }
+
+    @Override
+    public <R> BaselineIO<R> flatMap(Function1<T, BaselineIO<R>> map) {
+      return new FlatMapped<>(lazy::get, map::apply);
+    }
+
+    private BaselineIO<T> next() {
+      return lazy.get();
+    }
+  }
+
+  static <A, X> BaselineIO<A> collapse(BaselineIO<A> self) {
+    BaselineIO<A> current = self;
+    while (true) {
+      if (current instanceof Suspend) {
+        Suspend<A> suspend = (Suspend<A>) current;
+        current = suspend.next();
+      } else if (current instanceof FlatMapped) {
+        FlatMapped<X, A> flatMapped = (FlatMapped<X, A>) current;
+        return new FlatMapped<>(flatMapped::start, a -> collapse(flatMapped.run(a)));
+      } else break;
+    }
+    return current;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static <A> A evaluate(BaselineIO<A> self) {
+    Deque<Function1<Object, BaselineIO>> stack = new LinkedList<>();
+    BaselineIO<A> current = self;
+    while (true) {
+      if (current instanceof FlatMapped) {
+        FlatMapped currentFlatMapped = (FlatMapped) current;
+        BaselineIO<A> next = currentFlatMapped.start();
+        if (next instanceof FlatMapped) {
+          FlatMapped nextFlatMapped = (FlatMapped) next;
+          current = nextFlatMapped.start();
+          stack.push(currentFlatMapped::run);
+          stack.push(nextFlatMapped::run);
+        } else {
+          current = (BaselineIO<A>) currentFlatMapped.run(next.unsafeRunSync());
+        }
+      } else if (!stack.isEmpty()) {
+        current = (BaselineIO<A>) stack.pop().apply(current.unsafeRunSync());
+      } else break;
+    }
+    return current.unsafeRunSync();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Latency of short programs that share an executor with long CPU bound programs.</p>
+ *
+ * <p>The executor is always busy with long programs, every time one of them finishes another one is started.
+ * Without auto yield a short program waits until a long program finishes, with auto yield it waits only
+ * a slice. Compare the percentiles of both configurations.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOAutoYieldBenchmark {
+
+  private static final int THREADS = 2;
+  private static final int LONG_PROGRAMS = 4;
+  private static final int LONG_STEPS = 1_000_000;
+
+  @Param({ "0", "1024" })
+  public int autoYield;
+
+  private ExecutorService executor;
+  private CountDownLatch stopped;
+  private volatile boolean running;
+
+  @Setup
+  public void setup() {
+    executor = Executors.newFixedThreadPool(THREADS);
+    stopped = new CountDownLatch(LONG_PROGRAMS);
+    running = true;
+    for (int i = 0; i < LONG_PROGRAMS; i++) {
+      startLong();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    running = false;
+    stopped.await();
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public Try<Integer> shortProgram() {
+    Promise<Integer> promise = Promise.make();
+    IO.task(() -> 1).map(x -> x + 1).safeRunAsync(executor, autoYield, promise::tryComplete);
+    return promise.get();
+  }
+
+  private void startLong() {
+    if (running) {
+      count(0).safeRunAsync(executor, autoYield, result -> startLong());
+    } else {
+      stopped.countDown();
+    }
+  }
+
+  private static IO<Integer> count(int n) {
+    return IO.pure(n).flatMap(x -> x < LONG_STEPS ? count(x + 1) : IO.pure(x));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static com.github.tonivade.purefun.Nothing.nothing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tonivade.purefun.Nothing;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.effect.ZIO;
+import com.github.tonivade.purefun.instances.FutureInstances;
+import com.github.tonivade.purefun.instances.ZIOInstances;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Translation of {@code IO} programs to {@code Future} and {@code ZIO} with {@code foldMap},
+ * including the execution of the translated program.</p>
+ *
+ * <p>Pure programs are translated in a single step, programs with a task in every bind need a step
+ * of the target effect for every task.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOFoldMapBenchmark {
+
+  @Param({ "1000", "100000" })
+  public int depth;
+
+  private IO<Integer> pure;
+  private IO<Integer> tasks;
+
+  @Setup
+  public void setup() {
+    IO<Integer> pure = IO.pure(0);
+    IO<Integer> tasks = IO.pure(0);
+    for (int i = 0; i < depth; i++) {
+      pure = pure.flatMap(x -> IO.pure(x + 1));
+      tasks = tasks.flatMap(x -> IO.task(() -> x + 1));
+    }
+    this.pure = pure;
+    this.tasks = tasks;
+  }
+
+  @Benchmark
+  public Try<Integer> pureToFuture() {
+    return pure.foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK).await();
+  }
+
+  @Benchmark
+  public Either<Throwable, Integer> pureToZIO() {
+    return pure.foldMap(ZIOInstances.<Nothing>monadDefer()).fix1(ZIO::narrowK).provide(nothing());
+  }
+
+  @Benchmark
+  public Try<Integer> tasksToFuture() {
+    return tasks.foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK).await();
+  }
+
+  @Benchmark
+  public Either<Throwable, Integer> tasksToZIO() {
+    return tasks.foldMap(ZIOInstances.<Nothing>monadDefer()).fix1(ZIO::narrowK).provide(nothing());
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Compares {@code IORunLoop} with the previous evaluator on deep chains of binds.</p>
+ *
+ * <p>Left nested chains are built once, right nested chains are built while running. Run it with
+ * {@code -prof gc} to compare the allocation rate. The baseline evaluator overflows the stack with
+ * a few thousands of left nested binds, so depth is limited to values both of them can run.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IORunLoopBenchmark {
+
+  @Param({ "100", "1000" })
+  public int depth;
+
+  private IO<Integer> leftNested;
+  private BaselineIO<Integer> baselineLeftNested;
+
+  @Setup
+  public void setup() {
+    IO<Integer> io = IO.pure(0);
+    BaselineIO<Integer> baseline = BaselineIO.pure(0);
+    for (int i = 0; i < depth; i++) {
+      io = io.flatMap(x -> IO.pure(x + 1));
+      baseline = baseline.flatMap(x -> BaselineIO.pure(x + 1));
+    }
+    this.leftNested = io;
+    this.baselineLeftNested = baseline;
+  }
+
+  @Benchmark
+  public Integer leftNested() {
+    return leftNested.unsafeRunSync();
+  }
+
+  @Benchmark
+  public Integer leftNestedBaseline() {
+    return baselineLeftNested.unsafeRunSync();
+  }
+
+  @Benchmark
+  public Integer rightNested() {
+    return rightNested(0).unsafeRunSync();
+  }
+
+  @Benchmark
+  public Integer rightNestedBaseline() {
+    return baselineRightNested(0).unsafeRunSync();
+  }
+
+  private IO<Integer> rightNested(int n) {
+    return IO.pure(n).flatMap(x -> x < depth ? rightNested(x + 1) : IO.pure(x));
+  }
+
+  private BaselineIO<Integer> baselineRightNested(int n) {
+    return BaselineIO.pure(n).flatMap(x -> x < depth ? baselineRightNested(x + 1) : BaselineIO.pure(x));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.data.ImmutableMap;
+import com.github.tonivade.purefun.data.ImmutableSet;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Groups the loads of independent keys in a single call to a batch function.</p>
+ *
+ * <p>Every key requested with {@code load(key)} is added to the pending batch, and the batch is dispatched
+ * when the window is over, or, if there is no window, in the next tick of the executor, after the tasks
+ * that were already queued. In a pool with several threads, loads that arrive at the same time can be
+ * dispatched in different ticks, a small window groups them better. Keys are deduplicated and the results
+ * are cached by the loader, so a key is requested only once, and failures are not cached. Loaders are cheap,
+ * usually a new one is created for every request.</p>
+ *
+ * <pre>
+ * DataLoader&lt;Integer, User&gt; users = DataLoader.of(ids -&gt; findUsers(ids));
+ *
+ * IO&lt;Sequence&lt;User&gt;&gt; result = IO.parTraverse(ids, users::load, 10);
+ * </pre>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public final class DataLoader<K, V> {
+
+  private final Duration window;
+  private final Executor executor;
+  private final Function1<ImmutableSet<K>, IO<ImmutableMap<K, V>>> batch;
+
+  private final Map<K, Promise<V>> cache = new ConcurrentHashMap<>();
+  private Map<K, Promise<V>> pending = new HashMap<>();
+
+  private DataLoader(Duration window, Executor executor, Function1<ImmutableSet<K>, IO<ImmutableMap<K, V>>> batch) {
+    this.window = requireNonNull(window);
+    this.executor = requireNonNull(executor);
+    this.batch = requireNonNull(batch);
+  }
+
+  public static <K, V> DataLoader<K, V> of(Function1<ImmutableSet<K>, IO<ImmutableMap<K, V>>> batch) {
+    return of(Duration.ZERO, batch);
+  }
+
+  public static <K, V> DataLoader<K, V> of(Duration window, Function1<ImmutableSet<K>, IO<ImmutableMap<K, V>>> batch) {
+    return of(window, IOModule.FIBERS, batch);
+  }
+
+  public static <K, V> DataLoader<K, V> of(Duration window, Executor executor,
+                                           Function1<ImmutableSet<K>, IO<ImmutableMap<K, V>>> batch) {
+    return new DataLoader<>(window, executor, batch);
+  }
+
+  public IO<V> load(K key) {
+    requireNonNull(key);
+    return IO.suspend(() -> {
+      Promise<V> promise = promise(key);
+      return IO.async(promise::onComplete);
+    });
+  }
+
+  public IO<Unit> clear() {
+    return IO.exec(cache::clear);
+  }
+
+  public IO<Unit> clear(K key) {
+    return IO.exec(() -> cache.remove(key));
+  }
+
+  private Promise<V> promise(K key) {
+    Promise<V> cached = cache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    synchronized (this) {
+      cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      Promise<V> promise = Promise.make(executor);
+      cache.put(key, promise);
+      pending.put(key, promise);
+      if (pending.size() == 1) {
+        schedule();
+      }
+      return promise;
+    }
+  }
+
+  /**
+   * Called after adding the key, an executor that runs the task in the same thread dispatches the batch
+   * at once, and the lock is reentrant.
+   */
+  private void schedule() {
+    if (window.isZero()) {
+      executor.execute(this::dispatch);
+    } else {
+      Future.DEFAULT_SCHEDULER.schedule(() -> executor.execute(this::dispatch), window.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void dispatch() {
+    Map<K, Promise<V>> keys;
+    synchronized (this) {
+      keys = pending;
+      pending = new HashMap<>();
+    }
+    try {
+      batch.apply(ImmutableSet.from(keys.keySet())).safeRunAsync(executor, result -> complete(keys, result));
+    } catch (Throwable e) {
+      complete(keys, Try.failure(e));
+    }
+  }
+
+  private void complete(Map<K, Promise<V>> keys, Try<ImmutableMap<K, V>> result) {
+    keys.forEach((key, promise) -> {
+      Try<V> value = result.flatMap(
+          values -> values.get(key).fold(() -> Try.failure(new NoSuchElementException("key not found: " + key)), Try::success));
+      if (value.isFailure()) {
+        cache.remove(key, promise);
+      }
+      promise.tryComplete(value);
+    });
+  }
+}
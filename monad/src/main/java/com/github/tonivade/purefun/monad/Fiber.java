@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import java.util.concurrent.Executor;
+
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>A running {@code IO} program, created with {@code IO.fork()}.</p>
+ *
+ * <p>Fibers don't own a thread, they are executed in a pool and when they reach an asynchronous
+ * operation, like {@code IO.sleep} or {@code IO.async}, they are suspended until the operation completes,
+ * so the thread can be used by other fibers meanwhile.</p>
+ *
+ * @param <T> result of the program
+ */
+public interface Fiber<T> {
+
+  /**
+   * Waits, without blocking any thread, for the completion of the fiber. If the fiber is
+   * cancelled, it fails with a {@code CancellationException}.
+   *
+   * @return the result of the fiber
+   */
+  IO<T> join();
+
+  /**
+   * Cancels the fiber and waits until all the resources acquired by the fiber are released.
+   *
+   * @return unit when the fiber is finished
+   */
+  IO<Unit> cancel();
+}
+
+final class FiberImpl<T> implements Fiber<T> {
+
+  private final IORunLoop<T> loop;
+  private final Promise<T> promise;
+
+  FiberImpl(IO<T> program, Executor executor) {
+    this.loop = new IORunLoop<>(program);
+    this.promise = Promise.make(executor);
+    loop.start(executor, promise::tryComplete);
+  }
+
+  @Override
+  public IO<T> join() {
+    return IO.async(promise::onComplete);
+  }
+
+  @Override
+  public IO<Unit> cancel() {
+    return IO.async(callback -> {
+      loop.cancel();
+      promise.onComplete(ignore -> callback.accept(Try.success(Unit.unit())));
+    });
+  }
+}
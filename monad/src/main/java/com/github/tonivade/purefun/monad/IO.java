@@ -8,13 +8,20 @@ import static com.github.tonivade.purefun.Function1.identity;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.github.tonivade.purefun.CheckedRunnable;
 import com.github.tonivade.purefun.Consumer1;
 import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Function2;
 import com.github.tonivade.purefun.Higher1;
 import com.github.tonivade.purefun.HigherKind;
 import com.github.tonivade.purefun.Kind;
@@ -24,7 +31,12 @@ import com.github.tonivade.purefun.Sealed;
 import com.github.tonivade.purefun.Tuple;
 import com.github.tonivade.purefun.Tuple2;
 import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.BlockingWatchdog;
+import com.github.tonivade.purefun.concurrent.CircuitBreaker;
 import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.concurrent.ResourcePool;
+import com.github.tonivade.purefun.data.ImmutableArray;
 import com.github.tonivade.purefun.data.Sequence;
 import com.github.tonivade.purefun.type.Either;
 import com.github.tonivade.purefun.type.Try;
@@ -41,29 +53,35 @@ public interface IO<T> extends Recoverable {
   }
 
   default Future<T> toFuture() {
-    return toFuture(Future.DEFAULT_EXECUTOR);
+    return toFuture(IOModule.FIBERS);
   }
 
   default Future<T> toFuture(Executor executor) {
-    return Future.async(executor, this::unsafeRunSync);
+    Promise<T> promise = Promise.make(executor);
+    safeRunAsync(executor, promise::tryComplete);
+    return Future.from(executor, promise);
   }
 
   default void safeRunAsync(Consumer1<Try<T>> callback) {
-    safeRunAsync(Future.DEFAULT_EXECUTOR, callback);
+    safeRunAsync(IOModule.FIBERS, callback);
   }
 
   default void safeRunAsync(Executor executor, Consumer1<Try<T>> callback) {
-    toFuture(executor).onComplete(callback);
+    safeRunAsync(executor, IOModule.AUTO_YIELD, callback);
+  }
+
+  default void safeRunAsync(Executor executor, int autoYield, Consumer1<Try<T>> callback) {
+    IOModule.evaluateAsync(this, executor, autoYield, callback);
   }
 
   <F extends Kind> Higher1<F, T> foldMap(MonadDefer<F> monad);
 
   default <R> IO<R> map(Function1<T, R> map) {
-    return flatMap(map.andThen(IO::pure));
+    return new Map<>(this, map);
   }
 
   default <R> IO<R> flatMap(Function1<T, IO<R>> map) {
-    return new FlatMapped<>(Producer.cons(this), map);
+    return new FlatMapped<>(this, map);
   }
 
   default <R> IO<R> andThen(IO<R> after) {
@@ -105,11 +123,40 @@ public interface IO<T> extends Recoverable {
   }
 
   default IO<Tuple2<Duration, T>> timed() {
-    return IO.task(() -> {
-      long start = System.nanoTime();
-      T result = unsafeRunSync();
-      return Tuple.of(Duration.ofNanos(System.nanoTime() - start), result);
-    });
+    return IO.task(System::nanoTime).flatMap(
+        start -> map(result -> Tuple.of(Duration.ofNanos(System.nanoTime() - start), result)));
+  }
+
+  /**
+   * The program runs in its own loop in {@code IOModule.FIBERS}, use {@link #timeout(Duration, Executor)}
+   * to keep it in the executor of the caller.
+   */
+  default IO<T> timeout(Duration duration) {
+    return timeout(duration, IOModule.FIBERS);
+  }
+
+  default IO<T> timeout(Duration duration, Executor executor) {
+    return timeoutTo(duration, IO.suspend(() -> IO.raiseError(new TimeoutException("timeout after " + duration))), executor);
+  }
+
+  default IO<T> timeoutTo(Duration duration, IO<T> fallback) {
+    return timeoutTo(duration, fallback, IOModule.FIBERS);
+  }
+
+  default IO<T> timeoutTo(Duration duration, IO<T> fallback, Executor executor) {
+    return IOTimeout.timeoutTo(this, duration, fallback, executor);
+  }
+
+  default IO<T> memoize() {
+    return new IOCached<>(this, Long.MAX_VALUE, IOModule.FIBERS).get();
+  }
+
+  default IO<T> cached(Duration ttl) {
+    return new IOCached<>(this, ttl.toNanos(), IOModule.FIBERS).get();
+  }
+
+  default IO<T> protect(CircuitBreaker breaker) {
+    return IOModule.protect(this, breaker);
   }
 
   default IO<T> repeat() {
@@ -128,12 +175,21 @@ public interface IO<T> extends Recoverable {
     return IOModule.repeat(this, sleep(delay), times);
   }
 
+  default IO<Unit> repeatAtFixedRate(Duration period) {
+    long nanos = IOModule.period(period);
+    return IO.task(System::nanoTime).flatMap(start -> IOModule.repeatAtFixedRate(this, nanos, start));
+  }
+
+  default IO<Unit> repeatWithFixedDelay(Duration delay) {
+    return IOModule.repeatWithFixedDelay(this, sleep(Duration.ofNanos(IOModule.period(delay))));
+  }
+
   default IO<T> retry() {
     return retry(1);
   }
 
   default IO<T> retry(int maxRetries) {
-    return IOModule.retry(this, unit(), maxRetries);
+    return retry(RetryPolicy.immediate().withMaxRetries(maxRetries));
   }
 
   default IO<T> retry(Duration delay) {
@@ -141,11 +197,29 @@ public interface IO<T> extends Recoverable {
   }
 
   default IO<T> retry(Duration delay, int maxRetries) {
-    return IOModule.retry(this, sleep(delay), maxRetries);
+    return retry(RetryPolicy.constant(delay).withMaxRetries(maxRetries));
+  }
+
+  default IO<T> retry(RetryPolicy policy) {
+    return IO.task(System::nanoTime).flatMap(start -> IOModule.retry(this, policy, start, 0, Duration.ZERO));
   }
 
   IOModule getModule();
 
+  IOModule.Tag getTag();
+
+  default IO<Fiber<T>> fork() {
+    return fork(IOModule.FIBERS);
+  }
+
+  default IO<Fiber<T>> fork(Executor executor) {
+    return IO.task(() -> IOModule.fork(this, executor));
+  }
+
+  default IO<T> evalOn(Executor executor) {
+    return IOModule.evalOn(this, requireNonNull(executor));
+  }
+
   static <T> IO<T> pure(T value) {
     return new Pure<>(value);
   }
@@ -162,6 +236,13 @@ public interface IO<T> extends Recoverable {
     return new Suspend<>(lazy);
   }
 
+  static <T> IO<T> async(Consumer1<Consumer1<Try<T>>> callback) {
+    return IOModule.cancellable(resume -> {
+      callback.accept(resume);
+      return IOModule.NOTHING;
+    });
+  }
+
   static <T, R> Function1<T, IO<R>> lift(Function1<T, R> task) {
     return task.andThen(IO::pure);
   }
@@ -170,6 +251,10 @@ public interface IO<T> extends Recoverable {
     return new Sleep(duration);
   }
 
+  static <T> IO<T> blocking(Producer<T> producer) {
+    return task(producer).evalOn(IOModule.BLOCKING);
+  }
+
   static IO<Unit> exec(CheckedRunnable task) {
     return task(() -> { task.run(); return Unit.unit(); });
   }
@@ -190,10 +275,43 @@ public interface IO<T> extends Recoverable {
     return bracket(acquire, use, AutoCloseable::close);
   }
 
+  static <T, R> IO<R> bracket(ResourcePool<T> pool, Function1<T, IO<R>> use) {
+    return bracket(IOModule.acquire(pool), use, pool::release);
+  }
+
   static IO<Unit> sequence(Sequence<IO<?>> sequence) {
     return sequence.fold(unit(), IO::andThen).andThen(unit());
   }
 
+  static <A, B, C> IO<C> parMap2(IO<A> fa, IO<B> fb, Function2<A, B, C> mapper) {
+    return parMap2(IOModule.FIBERS, fa, fb, mapper);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <A, B, C> IO<C> parMap2(Executor executor, IO<A> fa, IO<B> fb, Function2<A, B, C> mapper) {
+    return parSequence(executor, ImmutableArray.of((IO<Object>) fa, (IO<Object>) fb)).map(results -> {
+      Iterator<Object> iterator = results.iterator();
+      return mapper.apply((A) iterator.next(), (B) iterator.next());
+    });
+  }
+
+  static <T> IO<Sequence<T>> parSequence(Sequence<IO<T>> sequence) {
+    return parSequence(IOModule.FIBERS, sequence);
+  }
+
+  static <T> IO<Sequence<T>> parSequence(Executor executor, Sequence<IO<T>> sequence) {
+    return parTraverse(executor, sequence, identity(), Math.max(1, sequence.size()));
+  }
+
+  static <T, R> IO<Sequence<R>> parTraverse(Sequence<T> values, Function1<T, IO<R>> mapper, int maxConcurrency) {
+    return parTraverse(IOModule.FIBERS, values, mapper, maxConcurrency);
+  }
+
+  static <T, R> IO<Sequence<R>> parTraverse(Executor executor, Sequence<T> values,
+                                            Function1<T, IO<R>> mapper, int maxConcurrency) {
+    return IOParTraverse.traverse(executor, values, mapper, maxConcurrency);
+  }
+
   final class Pure<T> implements IO<T> {
 
     private final T value;
@@ -217,18 +335,27 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.PURE;
+    }
+
     @Override
     public String toString() {
       return "Pure(" + value + ")";
     }
+
+    protected T value() {
+      return value;
+    }
   }
 
   final class FlatMapped<T, R> implements IO<R> {
 
-    private final Producer<IO<T>> current;
+    private final IO<T> current;
     private final Function1<T, IO<R>> next;
 
-    protected FlatMapped(Producer<IO<T>> current, Function1<T, IO<R>> next) {
+    protected FlatMapped(IO<T> current, Function1<T, IO<R>> next) {
       this.current = requireNonNull(current);
       this.next = requireNonNull(next);
     }
@@ -240,18 +367,17 @@ public interface IO<T> extends Recoverable {
 
     @Override
     public <F extends Kind> Higher1<F, R> foldMap(MonadDefer<F> monad) {
-      return monad.flatMap(current.get().foldMap(monad), next.andThen(io -> io.foldMap(monad)));
+      return IOFoldMap.foldMap(this, monad);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public <R1> IO<R1> flatMap(Function1<R, IO<R1>> map) {
-      return new FlatMapped<>(() -> (IO<R>) start(), r -> new FlatMapped<>(() -> run((T) r), map::apply));
+    public IOModule getModule() {
+      throw new UnsupportedOperationException();
     }
 
     @Override
-    public IOModule getModule() {
-      throw new UnsupportedOperationException();
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.FLAT_MAPPED;
     }
 
     @Override
@@ -260,7 +386,7 @@ public interface IO<T> extends Recoverable {
     }
 
     protected IO<T> start() {
-      return current.get();
+      return current;
     }
 
     protected IO<R> run(T value) {
@@ -268,6 +394,69 @@ public interface IO<T> extends Recoverable {
     }
   }
 
+  final class Map<T, R> implements IO<R> {
+
+    private static final int MAX_FUSION_DEPTH = 128;
+
+    private final IO<T> current;
+    private final Function1<T, R> map;
+    private final int depth;
+
+    protected Map(IO<T> current, Function1<T, R> map) {
+      this(current, map, 0);
+    }
+
+    private Map(IO<T> current, Function1<T, R> map, int depth) {
+      this.current = requireNonNull(current);
+      this.map = requireNonNull(map);
+      this.depth = depth;
+    }
+
+    @Override
+    public R unsafeRunSync() {
+      return IOModule.evaluate(this);
+    }
+
+    @Override
+    public <F extends Kind> Higher1<F, R> foldMap(MonadDefer<F> monad) {
+      return IOFoldMap.foldMap(this, monad);
+    }
+
+    @Override
+    public <B> IO<B> map(Function1<R, B> after) {
+      if (depth < MAX_FUSION_DEPTH) {
+        return new Map<>(current, map.andThen(value -> after.apply(requireNonNull(value))), depth + 1);
+      }
+      return new Map<>(this, after);
+    }
+
+    @Override
+    public IOModule getModule() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.MAP;
+    }
+
+    @Override
+    public String toString() {
+      return "Map(" + current + ", ?)";
+    }
+
+    protected IO<T> start() {
+      return current;
+    }
+
+    /**
+     * Same contract as {@code Pure}, a map must not return null, also in every fused function.
+     */
+    protected R run(T value) {
+      return requireNonNull(map.apply(value));
+    }
+  }
+
   final class Failure<T> implements IO<T>, Recoverable {
 
     private final Throwable error;
@@ -303,10 +492,19 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.FAILURE;
+    }
+
     @Override
     public String toString() {
       return "Failure(" + error + ")";
     }
+
+    protected Throwable error() {
+      return error;
+    }
   }
 
   final class Task<T> implements IO<T> {
@@ -332,6 +530,11 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.TASK;
+    }
+
     @Override
     public String toString() {
       return "Task(?)";
@@ -348,17 +551,12 @@ public interface IO<T> extends Recoverable {
 
     @Override
     public T unsafeRunSync() {
-      return IOModule.collapse(this).unsafeRunSync();
-    }
-
-    @Override
-    public <R> IO<R> flatMap(Function1<T, IO<R>> map) {
-      return new FlatMapped<>(lazy::get, map::apply);
+      return IOModule.evaluate(this);
     }
 
     @Override
     public <F extends Kind> Higher1<F, T> foldMap(MonadDefer<F> monad) {
-      return monad.defer(() -> lazy.get().foldMap(monad));
+      return IOFoldMap.foldMap(this, monad);
     }
 
     @Override
@@ -366,6 +564,11 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.SUSPEND;
+    }
+
     @Override
     public String toString() {
       return "Suspend(?)";
@@ -376,6 +579,44 @@ public interface IO<T> extends Recoverable {
     }
   }
 
+  final class Async<T> implements IO<T> {
+
+    private final Function1<Consumer1<Try<T>>, Runnable> callback;
+
+    protected Async(Function1<Consumer1<Try<T>>, Runnable> callback) {
+      this.callback = requireNonNull(callback);
+    }
+
+    @Override
+    public T unsafeRunSync() {
+      return IOModule.evaluate(this);
+    }
+
+    @Override
+    public <F extends Kind> Higher1<F, T> foldMap(MonadDefer<F> monad) {
+      return monad.later(this::unsafeRunSync);
+    }
+
+    @Override
+    public IOModule getModule() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.ASYNC;
+    }
+
+    @Override
+    public String toString() {
+      return "Async(?)";
+    }
+
+    protected Runnable register(Consumer1<Try<T>> resume) {
+      return callback.apply(resume);
+    }
+  }
+
   final class Sleep implements IO<Unit>, Recoverable {
 
     private final Duration duration;
@@ -405,10 +646,21 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.SLEEP;
+    }
+
     @Override
     public String toString() {
       return "Sleep(" + duration + ')';
     }
+
+    protected Runnable register(Consumer1<Try<Unit>> resume) {
+      ScheduledFuture<?> future = Future.DEFAULT_SCHEDULER.schedule(
+          () -> resume.accept(Try.success(Unit.unit())), duration.toNanos(), TimeUnit.NANOSECONDS);
+      return () -> future.cancel(false);
+    }
   }
 
   final class Bracket<T, R> implements IO<R> {
@@ -425,14 +677,12 @@ public interface IO<T> extends Recoverable {
 
     @Override
     public R unsafeRunSync() {
-      try (IOResource<T> resource = new IOResource<>(acquire.unsafeRunSync(), release)) {
-        return resource.apply(use).unsafeRunSync();
-      }
+      return IOModule.evaluate(this);
     }
 
     @Override
     public <F extends Kind> Higher1<F, R> foldMap(MonadDefer<F> monad) {
-      return monad.bracket(acquire.foldMap(monad), use.andThen(io -> io.foldMap(monad)), release);
+      return IOFoldMap.foldMap(this, monad);
     }
 
     @Override
@@ -440,10 +690,27 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.BRACKET;
+    }
+
     @Override
     public String toString() {
       return "Bracket(" + acquire + ", ?, ?)";
     }
+
+    protected IO<T> acquire() {
+      return acquire;
+    }
+
+    protected IOResource<T> open(T resource) {
+      return new IOResource<>(resource, release);
+    }
+
+    protected IO<R> use(IOResource<T> resource) {
+      return resource.apply(use);
+    }
   }
 
   final class Attempt<T> implements IO<Try<T>> {
@@ -456,12 +723,12 @@ public interface IO<T> extends Recoverable {
 
     @Override
     public Try<T> unsafeRunSync() {
-      return Try.of(current::unsafeRunSync);
+      return IOModule.evaluate(this);
     }
 
     @Override
     public <F extends Kind> Higher1<F, Try<T>> foldMap(MonadDefer<F> monad) {
-      return monad.map(monad.attempt(current.foldMap(monad)), Try::fromEither);
+      return IOFoldMap.foldMap(this, monad);
     }
 
     @Override
@@ -469,10 +736,19 @@ public interface IO<T> extends Recoverable {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IOModule.Tag getTag() {
+      return IOModule.Tag.ATTEMPT;
+    }
+
     @Override
     public String toString() {
       return "Attempt(" + current + ")";
     }
+
+    protected IO<T> start() {
+      return current;
+    }
   }
 }
 
@@ -480,41 +756,79 @@ interface IOModule {
 
   IO<Unit> UNIT = IO.pure(Unit.unit());
 
-  static <A, X> IO<A> collapse(IO<A> self) {
-    IO<A> current = self;
-    while (true) {
-      if (current instanceof IO.Suspend) {
-        IO.Suspend<A> suspend = (IO.Suspend<A>) current;
-        current = suspend.next();
-      } else if (current instanceof IO.FlatMapped) {
-        IO.FlatMapped<X, A> flatMapped = (IO.FlatMapped<X, A>) current;
-        return new IO.FlatMapped<>(flatMapped::start, a -> collapse(flatMapped.run(a)));
-      } else break;
+  Runnable NOTHING = () -> { };
+
+  int AUTO_YIELD = 1024;
+
+  /**
+   * Bounded pool for compute, one thread per core, it's the default executor of programs and fibers
+   */
+  Executor FIBERS = BlockingWatchdog.monitor("purefun-fibers", new ForkJoinPool(
+      Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true));
+
+  /**
+   * Elastic pool for blocking calls, threads are created on demand and discarded when idle
+   */
+  Executor BLOCKING = Executors.newCachedThreadPool(new ThreadFactory() {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable task) {
+      Thread thread = new Thread(task, "purefun-blocking-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
     }
-    return current;
+  });
+
+  enum Tag {
+    PURE, FAILURE, TASK, SUSPEND, FLAT_MAPPED, MAP, ASYNC, SLEEP, BRACKET, ATTEMPT
   }
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
   static <A> A evaluate(IO<A> self) {
-    Deque<Function1<Object, IO>> stack = new LinkedList<>();
-    IO<A> current = self;
-    while (true) {
-      if (current instanceof IO.FlatMapped) {
-        IO.FlatMapped currentFlatMapped = (IO.FlatMapped) current;
-        IO<A> next = currentFlatMapped.start();
-        if (next instanceof IO.FlatMapped) {
-          IO.FlatMapped nextFlatMapped = (IO.FlatMapped) next;
-          current = nextFlatMapped.start();
-          stack.push(currentFlatMapped::run);
-          stack.push(nextFlatMapped::run);
-        } else {
-          current = (IO<A>) currentFlatMapped.run(next.unsafeRunSync());
-        }
-      } else if (!stack.isEmpty()) {
-        current = (IO<A>) stack.pop().apply(current.unsafeRunSync());
-      } else break;
-    }
-    return current.unsafeRunSync();
+    return new IORunLoop<>(self).run();
+  }
+
+  static <A> void evaluateAsync(IO<A> self, Executor executor, int autoYield, Consumer1<Try<A>> callback) {
+    new IORunLoop<>(self).start(executor, autoYield, callback);
+  }
+
+  static <A> IO<A> cancellable(Function1<Consumer1<Try<A>>, Runnable> callback) {
+    return new IO.Async<>(callback);
+  }
+
+  static <A> Fiber<A> fork(IO<A> self, Executor executor) {
+    return new FiberImpl<>(self, requireNonNull(executor));
+  }
+
+  static <A> IO<A> acquire(ResourcePool<A> pool) {
+    return cancellable(pool::acquire);
+  }
+
+  static <A> IO<A> evalOn(IO<A> self, Executor executor) {
+    return cancellable(resume -> {
+      IORunLoop<A> loop = new IORunLoop<>(self);
+      loop.start(executor, resume);
+      return loop::cancel;
+    });
+  }
+
+  /**
+   * The permit is acquired by a bracket, so the call is closed, and counted as a failure, when the program
+   * is cancelled before having a result.
+   */
+  static <T> IO<T> protect(IO<T> self, CircuitBreaker breaker) {
+    return IO.bracket(
+        IO.task(() -> breaker.tryAcquire().map(CircuitBreaker.Permit::start)
+            .getOrElseThrow(() -> CircuitBreaker.OpenException.INSTANCE)),
+        call -> self.redeemWith(
+            error -> {
+              call.onFailure();
+              return IO.raiseError(error);
+            },
+            value -> {
+              call.onSuccess();
+              return IO.pure(value);
+            }));
   }
 
   static <T> IO<T> repeat(IO<T> self, IO<Unit> pause, int times) {
@@ -526,12 +840,43 @@ interface IOModule {
     });
   }
 
-  static <T> IO<T> retry(IO<T> self, IO<Unit> pause, int maxRetries) {
+  static long period(Duration period) {
+    long nanos = period.toNanos();
+    if (nanos <= 0) {
+      throw new IllegalArgumentException("period must be positive: " + period);
+    }
+    return nanos;
+  }
+
+  /**
+   * Ticks are aligned to the start, so the period doesn't drift with the time of every execution.
+   * If an execution takes longer than the period, the ticks that have been missed are skipped.
+   */
+  static IO<Unit> repeatAtFixedRate(IO<?> self, long period, long tick) {
+    return self.flatMap(ignore -> IO.suspend(() -> {
+      long now = System.nanoTime();
+      long next = tick + period;
+      if (next - now < 0) {
+        next += ((now - next) / period + 1) * period;
+      }
+      long following = next;
+      return IO.sleep(Duration.ofNanos(following - now)).andThen(repeatAtFixedRate(self, period, following));
+    }));
+  }
+
+  static IO<Unit> repeatWithFixedDelay(IO<?> self, IO<Unit> pause) {
+    return self.andThen(pause).flatMap(ignore -> repeatWithFixedDelay(self, pause));
+  }
+
+  static <T> IO<T> retry(IO<T> self, RetryPolicy policy, long start, int retries, Duration previousDelay) {
     return self.redeemWith(error -> {
-      if (maxRetries > 0)
-        return pause.andThen(retry(self, pause.repeat(), maxRetries - 1));
-      else
-        return IO.raiseError(error);
+      Duration elapsedTime = Duration.ofNanos(System.nanoTime() - start);
+      return policy.nextDelay(error, retries, previousDelay, elapsedTime).fold(
+          () -> IO.raiseError(error),
+          delay -> {
+            IO<T> next = retry(self, policy, start, retries + 1, delay);
+            return delay.isZero() ? next : IO.sleep(delay).andThen(next);
+          });
     }, IO::pure);
   }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Shared result of a program, created with {@code IO.memoize()} or {@code IO.cached(ttl)}.</p>
+ *
+ * <p>Only one execution of the program is running at a time, it runs in its own run loop, and callers
+ * that don't have any value to use wait for it without blocking any thread. When the value has expired,
+ * the first caller starts the refresh, and meanwhile all callers get the previous value. Failures
+ * are not cached, the next caller will try again.</p>
+ *
+ * @param <T> result of the program
+ */
+final class IOCached<T> {
+
+  private final IO<T> program;
+  private final long ttl;
+  private final Executor executor;
+  private final AtomicReference<State<T>> state = new AtomicReference<>(new State<>(false, null, 0, null));
+
+  IOCached(IO<T> program, long ttl, Executor executor) {
+    this.program = requireNonNull(program);
+    this.ttl = ttl;
+    this.executor = requireNonNull(executor);
+  }
+
+  IO<T> get() {
+    return IO.suspend(this::next);
+  }
+
+  private IO<T> next() {
+    while (true) {
+      State<T> current = state.get();
+      if (current.loaded && System.nanoTime() - current.loadedAt < ttl) {
+        return IO.pure(current.value);
+      }
+      if (current.loading != null) {
+        return current.loaded ? IO.pure(current.value) : IO.async(current.loading::onComplete);
+      }
+      Promise<T> loading = Promise.make(executor);
+      if (state.compareAndSet(current, new State<>(current.loaded, current.value, current.loadedAt, loading))) {
+        program.safeRunAsync(executor, result -> complete(loading, result));
+        return current.loaded ? IO.pure(current.value) : IO.async(loading::onComplete);
+      }
+    }
+  }
+
+  private void complete(Promise<T> loading, Try<T> result) {
+    State<T> current = state.get();
+    if (result.isSuccess()) {
+      state.set(new State<>(true, result.get(), System.nanoTime(), null));
+    } else {
+      state.set(new State<>(current.loaded, current.value, current.loadedAt, null));
+    }
+    loading.tryComplete(result);
+  }
+
+  private static final class State<T> {
+
+    private final boolean loaded;
+    private final T value;
+    private final long loadedAt;
+    private final Promise<T> loading;
+
+    private State(boolean loaded, T value, long loadedAt, Promise<T> loading) {
+      this.loaded = loaded;
+      this.value = value;
+      this.loadedAt = loadedAt;
+      this.loading = loading;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.tonivade.purefun.Higher1;
+import com.github.tonivade.purefun.Kind;
+import com.github.tonivade.purefun.type.Either;
+import com.github.tonivade.purefun.type.Try;
+import com.github.tonivade.purefun.typeclasses.MonadDefer;
+
+/**
+ * <p>Translates an {@code IO} program to another effect using constant stack.</p>
+ *
+ * <p>The program is walked with {@code tailRecM}, every step is deferred, so it's done when the target
+ * program runs, not when it's built. A step evaluates pure values, binds and maps in a loop, keeping the
+ * continuations in an immutable stack, until it finds an effect. The effect is translated to the target,
+ * and the next step starts with its result. Errors are not handled in the loop, attempts and brackets
+ * translate the program inside them with the corresponding operation of the target.</p>
+ *
+ * <p>The state is immutable, so the translated program can be executed any number of times.</p>
+ *
+ * @param <F> target effect
+ */
+final class IOFoldMap<F extends Kind> {
+
+  private final MonadDefer<F> monad;
+
+  private IOFoldMap(MonadDefer<F> monad) {
+    this.monad = requireNonNull(monad);
+  }
+
+  static <F extends Kind, T> Higher1<F, T> foldMap(IO<T> program, MonadDefer<F> monad) {
+    return new IOFoldMap<>(monad).translate(program);
+  }
+
+  private <T> Higher1<F, T> translate(IO<T> program) {
+    return monad.tailRecM(new State(program, null, null), state -> monad.defer(() -> step(state)));
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private <T> Higher1<F, Either<State, T>> step(State state) {
+    IO<?> current = state.current;
+    Object value = state.value;
+    Frame frames = state.frames;
+    try {
+      while (true) {
+        if (current == null) {
+          if (frames == null) {
+            return monad.pure(Either.right((T) value));
+          }
+          if (frames.bind) {
+            current = ((IO.FlatMapped) frames.node).run(value);
+          } else {
+            value = ((IO.Map) frames.node).run(value);
+          }
+          frames = frames.next;
+          continue;
+        }
+        switch (current.getTag()) {
+          case PURE:
+            value = ((IO.Pure<?>) current).value();
+            current = null;
+            break;
+          case FLAT_MAPPED:
+            IO.FlatMapped flatMapped = (IO.FlatMapped) current;
+            frames = new Frame(true, flatMapped, frames);
+            current = flatMapped.start();
+            break;
+          case MAP:
+            IO.Map map = (IO.Map) current;
+            frames = new Frame(false, map, frames);
+            current = map.start();
+            break;
+          case SUSPEND:
+            current = ((IO.Suspend<?>) current).next();
+            break;
+          case FAILURE:
+            return monad.raiseError(((IO.Failure<?>) current).error());
+          case ATTEMPT:
+            Higher1<F, Try<?>> attempt =
+                monad.map(monad.attempt(translate(((IO.Attempt<?>) current).start())), Try::fromEither);
+            return next(attempt, frames);
+          case BRACKET:
+            IO.Bracket bracket = (IO.Bracket) current;
+            Higher1<F, ?> acquire = monad.map(translate(bracket.acquire()), bracket::open);
+            Higher1<F, ?> use = monad.bracket((Higher1<F, IOResource<?>>) acquire,
+                resource -> translate(bracket.use(resource)), IOResource::close);
+            return next(use, frames);
+          default:
+            return next(current.foldMap(monad), frames);
+        }
+      }
+    } catch (Throwable e) {
+      return monad.raiseError(e);
+    }
+  }
+
+  private <T> Higher1<F, Either<State, T>> next(Higher1<F, ?> effect, Frame frames) {
+    return monad.map(effect, value -> Either.left(new State(null, value, frames)));
+  }
+
+  private static final class State {
+
+    private final IO<?> current;
+    private final Object value;
+    private final Frame frames;
+
+    private State(IO<?> current, Object value, Frame frames) {
+      this.current = current;
+      this.value = value;
+      this.frames = frames;
+    }
+  }
+
+  private static final class Frame {
+
+    private final boolean bind;
+    private final Object node;
+    private final Frame next;
+
+    private Frame(boolean bind, Object node, Frame next) {
+      this.bind = bind;
+      this.node = node;
+      this.next = next;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.data.ImmutableArray;
+import com.github.tonivade.purefun.data.Sequence;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Runs a list of programs in parallel, each one in its own run loop, with at most {@code maxConcurrency}
+ * programs running at the same time.</p>
+ *
+ * <p>Nobody waits for the programs, when one of them finishes, the next one is started from its callback,
+ * and the last one completes the whole operation. The first failure cancels the programs that are still running
+ * and it's reported immediately, without waiting the cancelled programs to release their resources.</p>
+ *
+ * @param <T> type of the values
+ * @param <R> type of the results
+ */
+final class IOParTraverse<T, R> {
+
+  private final Executor executor;
+  private final ImmutableArray<T> values;
+  private final Function1<T, IO<R>> mapper;
+  private final int maxConcurrency;
+  private final Consumer1<Try<Sequence<R>>> callback;
+
+  private final Object[] results;
+  private final AtomicReferenceArray<IORunLoop<R>> running;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicInteger remaining;
+  private final AtomicBoolean done = new AtomicBoolean();
+
+  private IOParTraverse(Executor executor, ImmutableArray<T> values, Function1<T, IO<R>> mapper,
+                        int maxConcurrency, Consumer1<Try<Sequence<R>>> callback) {
+    this.executor = requireNonNull(executor);
+    this.values = requireNonNull(values);
+    this.mapper = requireNonNull(mapper);
+    this.maxConcurrency = maxConcurrency;
+    this.callback = requireNonNull(callback);
+    this.results = new Object[values.size()];
+    this.running = new AtomicReferenceArray<>(values.size());
+    this.remaining = new AtomicInteger(values.size());
+  }
+
+  static <T, R> IO<Sequence<R>> traverse(Executor executor, Sequence<T> values,
+                                          Function1<T, IO<R>> mapper, int maxConcurrency) {
+    requireNonNull(executor);
+    requireNonNull(values);
+    requireNonNull(mapper);
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("max concurrency should be greater than zero: " + maxConcurrency);
+    }
+    return IOModule.cancellable(
+        callback -> new IOParTraverse<>(executor, ImmutableArray.from(values), mapper, maxConcurrency, callback).start());
+  }
+
+  private Runnable start() {
+    if (values.isEmpty()) {
+      callback.accept(Try.success(ImmutableArray.empty()));
+      return IOModule.NOTHING;
+    }
+    for (int i = 0; i < Math.min(maxConcurrency, values.size()); i++) {
+      fork();
+    }
+    return this::cancel;
+  }
+
+  private void fork() {
+    int index = next.getAndIncrement();
+    if (index >= values.size() || done.get()) {
+      return;
+    }
+    IO<R> program;
+    try {
+      program = mapper.apply(values.get(index));
+    } catch (Throwable e) {
+      fail(e);
+      return;
+    }
+    IORunLoop<R> loop = new IORunLoop<>(program);
+    running.set(index, loop);
+    loop.start(executor, result -> complete(index, result));
+    if (done.get()) {
+      loop.cancel();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void complete(int index, Try<R> result) {
+    running.set(index, null);
+    if (result.isFailure()) {
+      fail(result.getCause());
+    } else {
+      results[index] = result.get();
+      if (remaining.decrementAndGet() == 0) {
+        if (done.compareAndSet(false, true)) {
+          callback.accept(Try.success(ImmutableArray.of((R[]) results)));
+        }
+      } else {
+        fork();
+      }
+    }
+  }
+
+  private void fail(Throwable error) {
+    if (done.compareAndSet(false, true)) {
+      cancelAll();
+      callback.accept(Try.failure(error));
+    }
+  }
+
+  private void cancel() {
+    if (done.compareAndSet(false, true)) {
+      cancelAll();
+    }
+  }
+
+  private void cancelAll() {
+    for (int i = 0; i < running.length(); i++) {
+      IORunLoop<R> loop = running.get(i);
+      if (loop != null) {
+        loop.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.Recoverable;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.concurrent.Promise;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Interpreter of {@code IO} programs.</p>
+ *
+ * <p>Continuations are kept in a growable array, next to a byte that tells what kind of frame it is,
+ * and nodes are dispatched by its tag. Binds and maps push the node itself, so the loop doesn't
+ * allocate anything per step apart from what the user continuations allocate. Maps are applied to
+ * the current value directly, without wrapping the result in a new {@code IO}.</p>
+ *
+ * <p>It can run in two modes. {@code run()} evaluates the program in the current thread and blocks it
+ * when an asynchronous node is found. {@code start(executor, callback)} evaluates the program in the
+ * given executor, and when an asynchronous node is found the loop is suspended, no thread is waiting,
+ * and it's resumed in the executor when the callback is called. In this mode the loop also yields the thread
+ * every {@code autoYield} steps, it's scheduled again in the executor behind the tasks that were waiting,
+ * so a long program doesn't starve the other programs that share the same executor. A task submitted from
+ * a worker of a {@code ForkJoinPool} goes to the local queue of the worker, that it runs before the tasks
+ * submitted from outside, so if there are tasks submitted from outside waiting, the loop is submitted again
+ * from another thread, behind them.</p>
+ *
+ * <p>{@code evalOn} starts the region in another loop, in the other executor, and the result is delivered
+ * to this loop as any other callback, so the program goes back to its own executor.</p>
+ *
+ * <p>A loop started in asynchronous mode can be cancelled. The flag is checked before every step,
+ * except while a bracket is acquiring its resource, so the acquisition is never interrupted. If the loop
+ * is suspended when it's cancelled, the pending callback is discarded and the loop is resumed to release
+ * the resources that are still open. Then the program ends with a {@code CancellationException}.</p>
+ *
+ * @param <T> result of the program
+ */
+final class IORunLoop<T> implements Recoverable {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final byte BIND = 0;
+  private static final byte MAP = 1;
+  private static final byte ATTEMPT = 2;
+  private static final byte BRACKET = 3;
+  private static final byte RELEASE = 4;
+
+  private Object[] frames = new Object[INITIAL_CAPACITY];
+  private byte[] kinds = new byte[INITIAL_CAPACITY];
+  private int size = 0;
+
+  private IO<?> current;
+  private Object value;
+  private Throwable error;
+
+  private int masked = 0;
+  private volatile boolean cancelled = false;
+  private volatile AsyncCallback suspended;
+
+  private Executor executor;
+  private int autoYield;
+  private Consumer1<Try<T>> callback;
+
+  IORunLoop(IO<T> program) {
+    this.current = requireNonNull(program);
+  }
+
+  @SuppressWarnings("unchecked")
+  T run() {
+    loop();
+    if (error != null) {
+      return sneakyThrow(error);
+    }
+    return (T) value;
+  }
+
+  void start(Executor executor, Consumer1<Try<T>> callback) {
+    start(executor, IOModule.AUTO_YIELD, callback);
+  }
+
+  /**
+   * @param autoYield number of steps before yielding the thread, zero or less to never yield
+   */
+  void start(Executor executor, int autoYield, Consumer1<Try<T>> callback) {
+    this.executor = requireNonNull(executor);
+    this.autoYield = autoYield;
+    this.callback = requireNonNull(callback);
+    executor.execute(this::runAsync);
+  }
+
+  /**
+   * The flag is set before reading the pending callback, and the loop publishes the callback before reading
+   * the flag again, so if the loop is suspending at the same time one of them always sees the other.
+   */
+  void cancel() {
+    cancelled = true;
+    AsyncCallback pending = suspended;
+    if (pending != null && pending.interruptible && pending.compareAndSet(false, true)) {
+      pending.cancel();
+      executor.execute(this::runAsync);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void runAsync() {
+    if (loop()) {
+      callback.accept(error != null ? Try.failure(error) : Try.success((T) value));
+    }
+  }
+
+  private void resumeAsync(Try<?> result) {
+    suspended = null;
+    if (result.isSuccess()) {
+      value = result.get();
+    } else {
+      error = result.getCause();
+    }
+    runAsync();
+  }
+
+  /**
+   * @return false if the loop has been suspended waiting for an asynchronous callback
+   */
+  private boolean loop() {
+    int steps = 0;
+    while (true) {
+      if (cancelled && masked == 0) {
+        abort();
+        return true;
+      }
+      if (autoYield > 0 && ++steps == autoYield) {
+        yieldThread();
+        return false;
+      }
+      if (current != null) {
+        if (!eval()) {
+          return false;
+        }
+      } else if (error != null) {
+        if (size == 0) {
+          return true;
+        }
+        unwind();
+      } else if (size == 0) {
+        return true;
+      } else {
+        resume();
+      }
+    }
+  }
+
+  /**
+   * Only a worker of the same pool pushes to its local queue, any other submission is already external.
+   */
+  private void yieldThread() {
+    if (executor instanceof ForkJoinPool
+        && ForkJoinTask.getPool() == executor && ((ForkJoinPool) executor).hasQueuedSubmissions()) {
+      Future.DEFAULT_EXECUTOR.execute(() -> executor.execute(this::runAsync));
+    } else {
+      executor.execute(this::runAsync);
+    }
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private boolean eval() {
+    IO<?> io = current;
+    switch (io.getTag()) {
+      case PURE:
+        value = ((IO.Pure<?>) io).value();
+        current = null;
+        break;
+      case FAILURE:
+        error = ((IO.Failure<?>) io).error();
+        current = null;
+        break;
+      case TASK:
+        current = null;
+        try {
+          value = io.unsafeRunSync();
+        } catch (Throwable e) {
+          error = e;
+        }
+        break;
+      case SUSPEND:
+        try {
+          current = ((IO.Suspend<?>) io).next();
+        } catch (Throwable e) {
+          current = null;
+          error = e;
+        }
+        break;
+      case FLAT_MAPPED:
+        IO.FlatMapped flatMapped = (IO.FlatMapped) io;
+        push(BIND, flatMapped);
+        current = flatMapped.start();
+        break;
+      case MAP:
+        IO.Map map = (IO.Map) io;
+        push(MAP, map);
+        current = map.start();
+        break;
+      case ASYNC:
+        current = null;
+        IO.Async async = (IO.Async) io;
+        return async(resume -> cancelWith(resume, async.register(resume)));
+      case SLEEP:
+        current = null;
+        if (executor == null) {
+          try {
+            value = io.unsafeRunSync();
+          } catch (Throwable e) {
+            error = e;
+          }
+          break;
+        }
+        IO.Sleep sleep = (IO.Sleep) io;
+        return async(resume -> cancelWith(resume, sleep.register((Consumer1) resume)));
+      case BRACKET:
+        IO.Bracket bracket = (IO.Bracket) io;
+        masked++;
+        push(BRACKET, bracket);
+        current = bracket.acquire();
+        break;
+      case ATTEMPT:
+        push(ATTEMPT, null);
+        current = ((IO.Attempt<?>) io).start();
+        break;
+      default:
+        throw new IllegalStateException("unknown node: " + io);
+    }
+    return true;
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private void resume() {
+    byte kind = kinds[--size];
+    Object frame = frames[size];
+    frames[size] = null;
+    try {
+      switch (kind) {
+        case BIND:
+          current = ((IO.FlatMapped) frame).run(value);
+          break;
+        case MAP:
+          value = ((IO.Map) frame).run(value);
+          break;
+        case ATTEMPT:
+          value = Try.success(value);
+          break;
+        case BRACKET:
+          masked--;
+          IO.Bracket bracket = (IO.Bracket) frame;
+          IOResource resource = bracket.open(value);
+          push(RELEASE, resource);
+          current = bracket.use(resource);
+          break;
+        case RELEASE:
+          ((IOResource<?>) frame).close();
+          break;
+        default:
+          throw new IllegalStateException("unknown frame: " + kind);
+      }
+    } catch (Throwable e) {
+      current = null;
+      error = e;
+    }
+  }
+
+  private void unwind() {
+    byte kind = kinds[--size];
+    Object frame = frames[size];
+    frames[size] = null;
+    if (kind == ATTEMPT) {
+      value = Try.failure(error);
+      error = null;
+    } else if (kind == BRACKET) {
+      masked--;
+    } else if (kind == RELEASE) {
+      release((IOResource<?>) frame);
+    }
+  }
+
+  /**
+   * Drops the rest of the program, it only releases the resources that are still open.
+   */
+  private void abort() {
+    current = null;
+    value = null;
+    error = new CancellationException();
+    while (size > 0) {
+      byte kind = kinds[--size];
+      Object frame = frames[size];
+      frames[size] = null;
+      if (kind == RELEASE) {
+        release((IOResource<?>) frame);
+      }
+    }
+  }
+
+  private void release(IOResource<?> resource) {
+    try {
+      resource.close();
+    } catch (Throwable e) {
+      if (e != error) {
+        error.addSuppressed(e);
+      }
+    }
+  }
+
+  /**
+   * @return false if the loop has been suspended, true if the result is already available
+   */
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private boolean async(Consumer1<Consumer1<Try<?>>> register) {
+    if (executor == null) {
+      Promise<Object> promise = Promise.make();
+      try {
+        register.accept((Consumer1) (Consumer1<Try<Object>>) promise::tryComplete);
+      } catch (Throwable e) {
+        promise.tryComplete(Try.failure(e));
+      }
+      Try<Object> result = await(promise);
+      if (result.isSuccess()) {
+        value = result.get();
+      } else {
+        error = result.getCause();
+      }
+      return true;
+    }
+    AsyncCallback resume = new AsyncCallback(masked == 0);
+    suspended = resume;
+    if (cancelled && resume.interruptible && resume.compareAndSet(false, true)) {
+      resume.cancel();
+      executor.execute(this::runAsync);
+      return false;
+    }
+    try {
+      register.accept(resume);
+    } catch (Throwable e) {
+      resume.accept(Try.failure(e));
+    }
+    return false;
+  }
+
+  /**
+   * If the current thread belongs to a fork join pool, the pool is notified before blocking, so it can
+   * start another thread, otherwise a small pool would be exhausted by programs waiting for each other.
+   */
+  private static Try<Object> await(Promise<Object> promise) {
+    if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+      try {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+          @Override
+          public boolean block() {
+            promise.get();
+            return true;
+          }
+
+          @Override
+          public boolean isReleasable() {
+            return promise.isCompleted();
+          }
+        });
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return Try.failure(e);
+      }
+    }
+    return promise.get();
+  }
+
+  private static void cancelWith(Consumer1<Try<?>> resume, Runnable canceller) {
+    if (resume instanceof IORunLoop.AsyncCallback) {
+      ((IORunLoop<?>.AsyncCallback) resume).cancelWith(canceller);
+    }
+  }
+
+  private void push(byte kind, Object frame) {
+    if (size == frames.length) {
+      frames = Arrays.copyOf(frames, size << 1);
+      kinds = Arrays.copyOf(kinds, size << 1);
+    }
+    frames[size] = frame;
+    kinds[size++] = kind;
+  }
+
+  /**
+   * One shot callback that resumes the loop in the executor, so the thread that calls it,
+   * usually a thread owned by somebody else, never runs the rest of the program.
+   */
+  private final class AsyncCallback extends AtomicBoolean implements Consumer1<Try<?>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean interruptible;
+    private volatile Runnable canceller;
+    private volatile boolean cancelled;
+
+    private AsyncCallback(boolean interruptible) {
+      this.interruptible = interruptible;
+    }
+
+    private void cancelWith(Runnable canceller) {
+      this.canceller = canceller;
+      if (cancelled) {
+        canceller.run();
+      }
+    }
+
+    /**
+     * The canceller can be set after the cancellation, so it may be called twice.
+     */
+    private void cancel() {
+      cancelled = true;
+      Runnable current = canceller;
+      if (current != null) {
+        current.run();
+      }
+    }
+
+    @Override
+    public void run(Try<?> result) {
+      if (compareAndSet(false, true)) {
+        executor.execute(() -> resumeAsync(result));
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static com.github.tonivade.purefun.Function1.identity;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.concurrent.Future;
+import com.github.tonivade.purefun.type.Try;
+
+/**
+ * <p>Runs a program in its own run loop with a timer in the shared scheduler. When the timer fires,
+ * the program is cancelled and the fallback is returned, so the caller doesn't wait for the program.
+ * The cancelled program releases the resources it has acquired as soon as it reaches a cancellation point,
+ * that is, immediately if it's waiting for an asynchronous operation, or when the current step finishes.</p>
+ *
+ * <p>If the program finishes first, the timer is cancelled.</p>
+ *
+ * @param <T> result of the program
+ */
+final class IOTimeout<T> {
+
+  private final IORunLoop<T> loop;
+  private final IO<T> fallback;
+  private final Consumer1<Try<IO<T>>> callback;
+  private final AtomicBoolean done = new AtomicBoolean();
+
+  private ScheduledFuture<?> timer;
+
+  private IOTimeout(IO<T> program, IO<T> fallback, Consumer1<Try<IO<T>>> callback) {
+    this.loop = new IORunLoop<>(program);
+    this.fallback = requireNonNull(fallback);
+    this.callback = requireNonNull(callback);
+  }
+
+  static <T> IO<T> timeoutTo(IO<T> program, Duration duration, IO<T> fallback, Executor executor) {
+    requireNonNull(program);
+    requireNonNull(duration);
+    requireNonNull(fallback);
+    requireNonNull(executor);
+    return IOModule.<IO<T>>cancellable(
+        callback -> new IOTimeout<>(program, fallback, callback).start(duration, executor)).flatMap(identity());
+  }
+
+  private Runnable start(Duration duration, Executor executor) {
+    timer = Future.DEFAULT_SCHEDULER.schedule(this::timeout, duration.toNanos(), TimeUnit.NANOSECONDS);
+    loop.start(executor, this::complete);
+    return this::cancel;
+  }
+
+  private void timeout() {
+    if (done.compareAndSet(false, true)) {
+      loop.cancel();
+      callback.accept(Try.success(fallback));
+    }
+  }
+
+  private void complete(Try<T> result) {
+    if (done.compareAndSet(false, true)) {
+      timer.cancel(false);
+      callback.accept(result.map(IO::pure));
+    }
+  }
+
+  private void cancel() {
+    if (done.compareAndSet(false, true)) {
+      timer.cancel(false);
+      loop.cancel();
+    }
+  }
+}
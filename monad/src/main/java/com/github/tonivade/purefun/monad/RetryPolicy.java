@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.github.tonivade.purefun.Matcher1;
+import com.github.tonivade.purefun.type.Option;
+
+/**
+ * <p>Decides if a failed program should be retried and how long to wait before the next attempt.</p>
+ *
+ * <p>Policies are immutable, every method returns a new policy, so they can be defined once
+ * and shared. By default a policy retries forever on any error, without limit on the delay.</p>
+ *
+ * <pre>
+ * RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(100))
+ *     .withMaxDelay(Duration.ofSeconds(5))
+ *     .withMaxElapsedTime(Duration.ofMinutes(1))
+ *     .withFullJitter()
+ *     .retryOn(error -&gt; error instanceof IOException);
+ * </pre>
+ */
+public final class RetryPolicy {
+
+  private enum Jitter { NONE, FULL, DECORRELATED }
+
+  private final long baseDelay;
+  private final double multiplier;
+  private final long maxDelay;
+  private final int maxRetries;
+  private final long maxElapsedTime;
+  private final Jitter jitter;
+  private final Matcher1<Throwable> retryOn;
+
+  private RetryPolicy(long baseDelay, double multiplier, long maxDelay,
+                      int maxRetries, long maxElapsedTime, Jitter jitter, Matcher1<Throwable> retryOn) {
+    this.baseDelay = baseDelay;
+    this.multiplier = multiplier;
+    this.maxDelay = maxDelay;
+    this.maxRetries = maxRetries;
+    this.maxElapsedTime = maxElapsedTime;
+    this.jitter = requireNonNull(jitter);
+    this.retryOn = requireNonNull(retryOn);
+  }
+
+  public static RetryPolicy immediate() {
+    return constant(Duration.ZERO);
+  }
+
+  public static RetryPolicy constant(Duration delay) {
+    return exponential(delay, 1.0);
+  }
+
+  public static RetryPolicy exponential(Duration baseDelay) {
+    return exponential(baseDelay, 2.0);
+  }
+
+  public static RetryPolicy exponential(Duration baseDelay, double multiplier) {
+    if (baseDelay.isNegative()) {
+      throw new IllegalArgumentException("delay should not be negative: " + baseDelay);
+    }
+    if (multiplier < 1.0) {
+      throw new IllegalArgumentException("multiplier should be greater or equal than one: " + multiplier);
+    }
+    return new RetryPolicy(baseDelay.toNanos(), multiplier, Long.MAX_VALUE,
+        Integer.MAX_VALUE, Long.MAX_VALUE, Jitter.NONE, Matcher1.always());
+  }
+
+  public RetryPolicy withMaxRetries(int maxRetries) {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay, maxRetries, maxElapsedTime, jitter, retryOn);
+  }
+
+  public RetryPolicy withMaxDelay(Duration maxDelay) {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay.toNanos(), maxRetries, maxElapsedTime, jitter, retryOn);
+  }
+
+  /**
+   * Stops retrying when the next attempt would start after the given time since the first attempt.
+   */
+  public RetryPolicy withMaxElapsedTime(Duration maxElapsedTime) {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay, maxRetries, maxElapsedTime.toNanos(), jitter, retryOn);
+  }
+
+  /**
+   * Every delay is a random value between zero and the calculated delay.
+   */
+  public RetryPolicy withFullJitter() {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay, maxRetries, maxElapsedTime, Jitter.FULL, retryOn);
+  }
+
+  /**
+   * Every delay is a random value between the base delay and three times the previous delay,
+   * so the multiplier is ignored.
+   */
+  public RetryPolicy withDecorrelatedJitter() {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay, maxRetries, maxElapsedTime, Jitter.DECORRELATED, retryOn);
+  }
+
+  public RetryPolicy retryOn(Matcher1<Throwable> matcher) {
+    return new RetryPolicy(baseDelay, multiplier, maxDelay, maxRetries, maxElapsedTime, jitter, retryOn.and(matcher));
+  }
+
+  /**
+   * @param error error of the last attempt
+   * @param retries number of retries already done
+   * @param previousDelay last delay, zero before the first retry
+   * @param elapsedTime time since the first attempt started
+   * @return the delay before the next attempt, or none if it shouldn't be retried
+   */
+  Option<Duration> nextDelay(Throwable error, int retries, Duration previousDelay, Duration elapsedTime) {
+    if (retries >= maxRetries || !retryOn.match(error)) {
+      return Option.none();
+    }
+    long delay = jitter(retries, previousDelay.toNanos());
+    if (elapsedTime.toNanos() > maxElapsedTime - delay) {
+      return Option.none();
+    }
+    return Option.some(Duration.ofNanos(delay));
+  }
+
+  private long jitter(int retries, long previousDelay) {
+    switch (jitter) {
+      case FULL:
+        return random(0, backoff(retries));
+      case DECORRELATED:
+        long upper = previousDelay > maxDelay / 3 ? maxDelay : Math.max(baseDelay, previousDelay * 3);
+        return Math.min(maxDelay, random(baseDelay, upper));
+      default:
+        return backoff(retries);
+    }
+  }
+
+  private long backoff(int retries) {
+    double delay = baseDelay * Math.pow(multiplier, retries);
+    return delay >= maxDelay ? maxDelay : (long) delay;
+  }
+
+  private static long random(long from, long to) {
+    return from < to ? from + (long) (ThreadLocalRandom.current().nextDouble() * (to - from)) : from;
+  }
+}
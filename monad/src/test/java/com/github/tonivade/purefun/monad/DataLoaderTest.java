@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import com.github.tonivade.purefun.Function1;
+import com.github.tonivade.purefun.Tuple;
+import com.github.tonivade.purefun.data.ImmutableList;
+import com.github.tonivade.purefun.data.ImmutableMap;
+import com.github.tonivade.purefun.data.ImmutableSet;
+import com.github.tonivade.purefun.data.Sequence;
+import com.github.tonivade.purefun.type.Try;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class DataLoaderTest {
+
+  private final List<ImmutableSet<Integer>> calls = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void batch() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    DataLoader<Integer, String> loader = DataLoader.of(Duration.ZERO, executor, this::findAll);
+
+    try {
+      Sequence<String> result =
+          IO.parTraverse(executor, ImmutableList.of(1, 2, 3, 1), loader::load, 4).toFuture(executor).get();
+
+      assertAll(
+          () -> assertEquals(ImmutableList.of("1", "2", "3", "1"), ImmutableList.from(result)),
+          () -> assertEquals(ImmutableList.of(ImmutableSet.of(1, 2, 3)), ImmutableList.from(calls)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void sameThreadExecutor() {
+    DataLoader<Integer, String> loader = DataLoader.of(Duration.ZERO, Runnable::run, this::findAll);
+
+    Try<String> result = loader.load(1).toFuture(Runnable::run).await(Duration.ofSeconds(1));
+
+    assertAll(
+        () -> assertEquals(Try.success("1"), result),
+        () -> assertEquals(ImmutableList.of(ImmutableSet.of(1)), ImmutableList.from(calls)));
+  }
+
+  @Test
+  public void cache() {
+    DataLoader<Integer, String> loader = DataLoader.of(this::findAll);
+
+    String first = loader.load(1).unsafeRunSync();
+    String second = loader.load(1).unsafeRunSync();
+    loader.clear(1).unsafeRunSync();
+    String third = loader.load(1).unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals("1", first),
+        () -> assertEquals("1", second),
+        () -> assertEquals("1", third),
+        () -> assertEquals(2, calls.size()));
+  }
+
+  @Test
+  public void window() throws InterruptedException {
+    DataLoader<Integer, String> loader = DataLoader.of(Duration.ofMillis(200), this::findAll);
+
+    IO<String> first = loader.load(1);
+    IO<String> second = IO.sleep(Duration.ofMillis(50)).andThen(loader.load(2));
+
+    String result = IO.parMap2(first, second, (a, b) -> a + b).unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals("12", result),
+        () -> assertEquals(ImmutableList.of(ImmutableSet.of(1, 2)), ImmutableList.from(calls)));
+  }
+
+  @Test
+  public void notFound() {
+    DataLoader<Integer, String> loader = DataLoader.of(this::findAll);
+
+    Try<String> result = loader.load(-1).safeRunSync();
+
+    assertTrue(result.getCause() instanceof NoSuchElementException);
+  }
+
+  @Test
+  public void failureNotCached() {
+    Function1<ImmutableSet<Integer>, IO<ImmutableMap<Integer, String>>> batch = keys -> {
+      calls.add(keys);
+      return calls.size() == 1 ? IO.raiseError(new UnsupportedOperationException()) : findAll(keys);
+    };
+    DataLoader<Integer, String> loader = DataLoader.of(batch);
+
+    Try<String> first = loader.load(1).safeRunSync();
+    Try<String> second = loader.load(1).safeRunSync();
+
+    assertAll(
+        () -> assertTrue(first.getCause() instanceof UnsupportedOperationException),
+        () -> assertEquals(Try.success("1"), second));
+  }
+
+  private IO<ImmutableMap<Integer, String>> findAll(ImmutableSet<Integer> keys) {
+    return IO.task(() -> {
+      calls.add(keys);
+      return ImmutableMap.from(keys.stream().filter(key -> key > 0).map(key -> Tuple.of(key, String.valueOf(key))));
+    });
+  }
+}
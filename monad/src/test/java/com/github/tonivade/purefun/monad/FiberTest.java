@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.type.Try;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class FiberTest {
+
+  @Test
+  public void forkJoin() {
+    IO<String> program = IO.pure("hola").map(String::toUpperCase).fork().flatMap(Fiber::join);
+
+    assertEquals("HOLA", program.unsafeRunSync());
+  }
+
+  @Test
+  public void joinFailure() {
+    IO<String> program = IO.<String>raiseError(new UnsupportedOperationException()).fork().flatMap(Fiber::join);
+
+    assertThrows(UnsupportedOperationException.class, program::unsafeRunSync);
+  }
+
+  @Test
+  public void manyFibers() {
+    int fibers = 100000;
+    IO<Integer> task = IO.sleep(Duration.ofMillis(100)).map(ignore -> 1);
+
+    long start = System.nanoTime();
+    List<Fiber<Integer>> running = new ArrayList<>(fibers);
+    for (int i = 0; i < fibers; i++) {
+      running.add(task.fork().unsafeRunSync());
+    }
+    int sum = 0;
+    for (Fiber<Integer> fiber : running) {
+      sum += fiber.join().unsafeRunSync();
+    }
+    long elapsed = System.nanoTime() - start;
+    int result = sum;
+
+    assertAll(
+        () -> assertEquals(fibers, result),
+        () -> assertTrue(elapsed < TimeUnit.SECONDS.toNanos(10)));
+  }
+
+  @Test
+  public void cancel(@Mock Consumer1<String> release) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    IO<String> acquire = IO.task(() -> "resource");
+    IO<Unit> program = IO.bracket(acquire,
+        resource -> IO.exec(started::countDown).andThen(IO.sleep(Duration.ofSeconds(10))), release);
+
+    Fiber<Unit> fiber = program.fork().unsafeRunSync();
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+    fiber.cancel().unsafeRunSync();
+
+    Try<Unit> result = fiber.join().safeRunSync();
+
+    verify(release).accept("resource");
+    assertTrue(result.getCause() instanceof CancellationException);
+  }
+
+  @Test
+  public void cancelDuringAcquire(@Mock Consumer1<String> release) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean used = new AtomicBoolean();
+    IO<String> acquire = IO.exec(started::countDown)
+        .andThen(IO.sleep(Duration.ofMillis(200))).map(ignore -> "resource");
+    IO<Unit> program = IO.bracket(acquire, resource -> IO.exec(() -> used.set(true)), release);
+
+    Fiber<Unit> fiber = program.fork().unsafeRunSync();
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+    fiber.cancel().unsafeRunSync();
+
+    Try<Unit> result = fiber.join().safeRunSync();
+
+    verify(release).accept("resource");
+    assertAll(
+        () -> assertFalse(used.get()),
+        () -> assertTrue(result.getCause() instanceof CancellationException));
+  }
+
+  @Test
+  public void cancelWhileRegistering() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch registering = new CountDownLatch(1);
+    CountDownLatch registered = new CountDownLatch(1);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    IO<String> never = IOModule.cancellable(callback -> {
+      registering.countDown();
+      awaitUninterruptibly(registered);
+      return () -> cancelled.set(true);
+    });
+
+    try {
+      Fiber<String> fiber = never.fork(executor).unsafeRunSync();
+      assertTrue(registering.await(1, TimeUnit.SECONDS));
+      Thread canceller = new Thread(() -> fiber.cancel().unsafeRunSync());
+      canceller.start();
+      while (canceller.getState() != Thread.State.WAITING && canceller.isAlive()) {
+        Thread.yield();
+      }
+      registered.countDown();
+      canceller.join(1000);
+
+      Try<String> result = fiber.join().safeRunSync();
+
+      assertAll(
+          () -> assertFalse(canceller.isAlive()),
+          () -> assertTrue(cancelled.get()),
+          () -> assertTrue(result.getCause() instanceof CancellationException));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    while (true) {
+      try {
+        latch.await();
+        return;
+      } catch (InterruptedException e) {
+        // wait anyway
+      }
+    }
+  }
+}
@@ -5,17 +5,24 @@
 package com.github.tonivade.purefun.monad;
 
 import com.github.tonivade.purefun.Consumer1;
+import com.github.tonivade.purefun.Nothing;
 import com.github.tonivade.purefun.Function1;
 import com.github.tonivade.purefun.Producer;
 import com.github.tonivade.purefun.Tuple2;
 import com.github.tonivade.purefun.Unit;
+import com.github.tonivade.purefun.concurrent.CircuitBreaker;
 import com.github.tonivade.purefun.concurrent.Future;
 import com.github.tonivade.purefun.concurrent.Par;
+import com.github.tonivade.purefun.concurrent.ResourcePool;
 import com.github.tonivade.purefun.data.ImmutableList;
+import com.github.tonivade.purefun.data.Sequence;
+import com.github.tonivade.purefun.effect.ZIO;
 import com.github.tonivade.purefun.instances.FutureInstances;
 import com.github.tonivade.purefun.instances.IOInstances;
 import com.github.tonivade.purefun.instances.ParInstances;
+import com.github.tonivade.purefun.instances.ZIOInstances;
 import com.github.tonivade.purefun.runtimes.ConsoleExecutor;
+import com.github.tonivade.purefun.type.Either;
 import com.github.tonivade.purefun.type.Try;
 import com.github.tonivade.purefun.typeclasses.Console;
 import com.github.tonivade.purefun.typeclasses.Reference;
@@ -27,8 +34,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tonivade.purefun.Function1.identity;
+import static com.github.tonivade.purefun.Nothing.nothing;
 import static com.github.tonivade.purefun.monad.IO.narrowK;
 import static com.github.tonivade.purefun.monad.IO.unit;
 import static org.junit.jupiter.api.Assertions.assertAll;
@@ -118,6 +138,89 @@ public class IOTest {
     verify(resultSet, timeout(1000)).close();
   }
 
+  @Test
+  public void bracketError() throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString("id")).thenThrow(SQLException.class);
+
+    IO<String> bracket = IO.bracket(open(resultSet), getString("id").andThen(IO::pure));
+
+    assertThrows(SQLException.class, bracket::unsafeRunSync);
+    verify(resultSet).close();
+  }
+
+  @Test
+  public void bracketPool() {
+    AtomicInteger created = new AtomicInteger();
+    ResourcePool<AtomicInteger> pool =
+        ResourcePool.builder(() -> { created.incrementAndGet(); return new AtomicInteger(); }, counter -> { })
+            .maxSize(2).build();
+
+    IO<Integer> use = IO.bracket(pool, counter -> IO.sleep(Duration.ofMillis(10)).andThen(IO.task(counter::incrementAndGet)));
+    Try<Sequence<Integer>> result =
+        IO.parTraverse(ImmutableList.from(Collections.nCopies(10, use)), identity(), 10).toFuture().await();
+
+    assertAll(
+        () -> assertEquals(10, result.get().size()),
+        () -> assertEquals(2, created.get()),
+        () -> assertEquals(10, pool.metrics().acquired()),
+        () -> assertEquals(2, pool.metrics().idle()));
+  }
+
+  @Test
+  public void protect(@Mock Producer<String> computation) {
+    when(computation.get()).thenThrow(UnsupportedOperationException.class);
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(2).build();
+
+    IO<String> program = IO.task(computation).protect(breaker);
+    Try<String> first = program.safeRunSync();
+    Try<String> second = program.safeRunSync();
+    Try<String> third = program.safeRunSync();
+
+    assertAll(
+        () -> assertTrue(first.getCause() instanceof UnsupportedOperationException),
+        () -> assertTrue(second.getCause() instanceof UnsupportedOperationException),
+        () -> assertTrue(third.getCause() instanceof CircuitBreaker.OpenException),
+        () -> verify(computation, times(2)).get());
+  }
+
+  @Test
+  public void repeatAtFixedRate() throws InterruptedException {
+    AtomicInteger fixedRate = new AtomicInteger();
+    AtomicInteger fixedDelay = new AtomicInteger();
+    IO<Unit> slowTask = IO.sleep(Duration.ofMillis(30));
+
+    Fiber<Unit> rate = slowTask.andThen(IO.exec(fixedRate::incrementAndGet))
+        .repeatAtFixedRate(Duration.ofMillis(50)).fork().unsafeRunSync();
+    Fiber<Unit> delay = slowTask.andThen(IO.exec(fixedDelay::incrementAndGet))
+        .repeatWithFixedDelay(Duration.ofMillis(50)).fork().unsafeRunSync();
+    Thread.sleep(600);
+    Try<Unit> cancelled = rate.cancel().andThen(delay.cancel()).andThen(rate.join()).safeRunSync();
+    int afterCancel = fixedRate.get();
+    Thread.sleep(100);
+
+    assertAll(
+        () -> assertTrue(cancelled.getCause() instanceof CancellationException),
+        () -> assertTrue(fixedRate.get() >= fixedDelay.get() + 2, fixedRate + " " + fixedDelay),
+        () -> assertEquals(afterCancel, fixedRate.get()));
+  }
+
+  @Test
+  public void repeatAtFixedRateStackSafety() {
+    AtomicInteger counter = new AtomicInteger();
+    IO<Unit> task = IO.exec(() -> {
+      if (counter.incrementAndGet() == 100000) {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    Try<Unit> result = task.repeatAtFixedRate(Duration.ofNanos(1)).safeRunSync();
+
+    assertAll(
+        () -> assertTrue(result.getCause() instanceof UnsupportedOperationException),
+        () -> assertEquals(100000, counter.get()));
+  }
+
   @Test
   public void safeRunAsyncSuccess(@Mock Consumer1<Try<String>> callback) {
     IO.pure("hola").safeRunAsync(callback);
@@ -134,6 +237,206 @@ public class IOTest {
     verify(callback, timeout(1000)).accept(Try.failure(error));
   }
 
+  @Test
+  public void async() {
+    IO<String> async = IO.async(callback -> Future.DEFAULT_EXECUTOR.execute(() -> callback.accept(Try.success("hola"))));
+
+    assertEquals("HOLA", async.map(String::toUpperCase).unsafeRunSync());
+    assertEquals(Try.success("HOLA"), async.map(String::toUpperCase).toFuture().await());
+  }
+
+  @Test
+  public void asyncFailure() {
+    RuntimeException error = new RuntimeException();
+    IO<String> async = IO.async(callback -> Future.DEFAULT_EXECUTOR.execute(() -> callback.accept(Try.failure(error))));
+
+    assertEquals(Try.failure(error), async.safeRunSync());
+    assertEquals(Try.failure(error), async.toFuture().await());
+  }
+
+  @Test
+  public void sleepAsync() throws InterruptedException {
+    int tasks = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch latch = new CountDownLatch(tasks);
+
+    try {
+      for (int i = 0; i < tasks; i++) {
+        IO.sleep(Duration.ofMillis(200)).safeRunAsync(executor, result -> latch.countDown());
+      }
+
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void autoYield() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    List<String> completed = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch latch = new CountDownLatch(2);
+
+    try {
+      sum(1000000, 0).safeRunAsync(executor, result -> { completed.add("long"); latch.countDown(); });
+      IO.pure("short").safeRunAsync(executor, result -> { completed.add("short"); latch.countDown(); });
+
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList("short", "long"), completed);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void autoYieldFibers() throws InterruptedException {
+    int workers = Runtime.getRuntime().availableProcessors();
+    List<String> completed = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(workers);
+    CountDownLatch latch = new CountDownLatch(workers + 1);
+
+    for (int i = 0; i < workers; i++) {
+      IO.exec(started::countDown).andThen(sum(3000000, 0))
+        .safeRunAsync(IOModule.FIBERS, result -> { completed.add("long"); latch.countDown(); });
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    IO.pure("short").safeRunAsync(IOModule.FIBERS, result -> { completed.add("short"); latch.countDown(); });
+
+    assertTrue(latch.await(30, TimeUnit.SECONDS));
+    assertEquals("short", completed.get(0));
+  }
+
+  @Test
+  public void autoYieldDisabled() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    List<String> completed = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch latch = new CountDownLatch(2);
+
+    try {
+      sum(1000000, 0).safeRunAsync(executor, 0, result -> { completed.add("long"); latch.countDown(); });
+      IO.pure("short").safeRunAsync(executor, 0, result -> { completed.add("short"); latch.countDown(); });
+
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList("long", "short"), completed);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void evalOn() {
+    ExecutorService main = Executors.newSingleThreadExecutor(task -> new Thread(task, "main"));
+    ExecutorService other = Executors.newSingleThreadExecutor(task -> new Thread(task, "other"));
+
+    try {
+      IO<String> currentThread = IO.task(() -> Thread.currentThread().getName());
+      IO<String> program = IO.parMap2(main, currentThread.evalOn(other), currentThread, (a, b) -> a + ":" + b)
+          .flatMap(result -> currentThread.map(after -> result + ":" + after));
+
+      Try<String> result = program.toFuture(main).await();
+
+      assertEquals(Try.success("other:main:main"), result);
+    } finally {
+      main.shutdown();
+      other.shutdown();
+    }
+  }
+
+  @Test
+  public void evalOnFailure() {
+    ExecutorService other = Executors.newSingleThreadExecutor();
+
+    try {
+      UnsupportedOperationException error = new UnsupportedOperationException();
+
+      Try<Object> result = IO.raiseError(error).evalOn(other).safeRunSync();
+
+      assertEquals(Try.failure(error), result);
+    } finally {
+      other.shutdown();
+    }
+  }
+
+  @Test
+  public void blocking() {
+    IO<String> program = IO.blocking(() -> {
+      Thread.sleep(10);
+      return Thread.currentThread().getName();
+    });
+
+    Try<String> result = program.toFuture().await();
+
+    assertTrue(result.get().startsWith("purefun-blocking-"));
+  }
+
+  @Test
+  public void blockingDoesNotStarveCompute() {
+    int tasks = Runtime.getRuntime().availableProcessors() * 4;
+    CountDownLatch latch = new CountDownLatch(1);
+    IO<Unit> waiting = IO.blocking(() -> latch.await(5, TimeUnit.SECONDS)).andThen(unit());
+
+    IO<Sequence<Unit>> blocked = IO.parTraverse(ImmutableList.from(Collections.nCopies(tasks, waiting)), identity(), tasks);
+    Future<Sequence<Unit>> future = blocked.toFuture();
+    Try<String> compute = IO.task(() -> "done").toFuture().await(Duration.ofSeconds(1));
+    latch.countDown();
+
+    assertAll(
+        () -> assertEquals(Try.success("done"), compute),
+        () -> assertTrue(future.await(Duration.ofSeconds(5)).isSuccess()));
+  }
+
+  @Test
+  public void parMap2() {
+    IO<String> hello = IO.sleep(Duration.ofMillis(500)).map(ignore -> "hola");
+    IO<String> world = IO.sleep(Duration.ofMillis(500)).map(ignore -> "mundo");
+
+    Tuple2<Duration, String> result = IO.parMap2(hello, world, (a, b) -> a + " " + b).timed().unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals("hola mundo", result.get2()),
+        () -> assertTrue(result.get1().toMillis() < 900));
+  }
+
+  @Test
+  public void parTraverse() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    IO<Sequence<Integer>> traverse = IO.parTraverse(ImmutableList.of(5, 4, 3, 2, 1, 0),
+        i -> IO.exec(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+            .andThen(IO.sleep(Duration.ofMillis(i * 20)))
+            .andThen(IO.task(() -> { running.decrementAndGet(); return i * 10; })), 2);
+
+    Sequence<Integer> result = traverse.unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals(ImmutableList.of(50, 40, 30, 20, 10, 0), ImmutableList.from(result)),
+        () -> assertEquals(2, maxRunning.get()));
+  }
+
+  @Test
+  public void parSequence() {
+    IO<Sequence<String>> sequence =
+        IO.parSequence(ImmutableList.of(IO.pure("a"), IO.sleep(Duration.ofMillis(100)).map(ignore -> "b"), IO.pure("c")));
+
+    assertAll(
+        () -> assertEquals(ImmutableList.of("a", "b", "c"), ImmutableList.from(sequence.unsafeRunSync())),
+        () -> assertEquals(ImmutableList.empty(), ImmutableList.from(IO.parSequence(ImmutableList.<IO<String>>empty()).unsafeRunSync())));
+  }
+
+  @Test
+  public void parSequenceFailure(@Mock Consumer1<String> release) {
+    IO<String> sibling = IO.bracket(IO.pure("resource"), resource -> IO.sleep(Duration.ofSeconds(10)).map(ignore -> resource), release);
+    IO<String> failure = IO.sleep(Duration.ofMillis(100)).andThen(IO.raiseError(new UnsupportedOperationException()));
+
+    Tuple2<Duration, Try<Sequence<String>>> result =
+        IO.parSequence(ImmutableList.of(sibling, failure)).attempt().timed().unsafeRunSync();
+
+    verify(release, timeout(1000)).accept("resource");
+    assertAll(
+        () -> assertTrue(result.get2().getCause() instanceof UnsupportedOperationException),
+        () -> assertTrue(result.get1().toMillis() < 1000));
+  }
+
   @Test
   public void recover() {
     IO<String> recover = IO.<String>raiseError(new RuntimeException()).recover(error -> "hola mundo");
@@ -157,6 +460,120 @@ public class IOTest {
     assertThrows(IllegalArgumentException.class, recover::unsafeRunSync);
   }
 
+  @Test
+  public void timeoutExpired() {
+    IO<String> fast = IO.sleep(Duration.ofMillis(10)).map(ignore -> "hola");
+    IO<String> slow = IO.sleep(Duration.ofSeconds(10)).map(ignore -> "hola");
+
+    Tuple2<Duration, Try<String>> result = slow.timeout(Duration.ofMillis(100)).attempt().timed().unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals("hola", fast.timeout(Duration.ofSeconds(1)).unsafeRunSync()),
+        () -> assertTrue(result.get2().getCause() instanceof TimeoutException),
+        () -> assertTrue(result.get1().toMillis() < 1000));
+  }
+
+  @Test
+  public void timeoutToFallback() {
+    IO<String> slow = IO.sleep(Duration.ofSeconds(10)).map(ignore -> "hola");
+
+    assertEquals("adios", slow.timeoutTo(Duration.ofMillis(100), IO.pure("adios")).unsafeRunSync());
+  }
+
+  @Test
+  public void timeoutExecutor() {
+    ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "timeout"));
+
+    try {
+      IO<String> currentThread = IO.task(() -> Thread.currentThread().getName());
+
+      assertEquals("timeout", currentThread.timeout(Duration.ofSeconds(1), executor).unsafeRunSync());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void protectCancelled() {
+    CircuitBreaker breaker = CircuitBreaker.builder().minimumCalls(1).build();
+    IO<String> slow = IO.sleep(Duration.ofSeconds(10)).map(ignore -> "hola");
+
+    Try<String> result = slow.protect(breaker).timeout(Duration.ofMillis(100)).safeRunSync();
+    for (int i = 0; i < 100 && breaker.status() != CircuitBreaker.Status.OPEN; i++) {
+      IO.sleep(Duration.ofMillis(10)).unsafeRunSync();
+    }
+
+    assertAll(
+        () -> assertTrue(result.getCause() instanceof TimeoutException),
+        () -> assertEquals(CircuitBreaker.Status.OPEN, breaker.status()));
+  }
+
+  @Test
+  public void timeoutRelease(@Mock Consumer1<String> release) {
+    IO<String> bracket = IO.bracket(IO.pure("resource"),
+        resource -> IO.sleep(Duration.ofSeconds(10)).map(ignore -> resource), release);
+
+    Try<String> result = bracket.timeout(Duration.ofMillis(100)).safeRunSync();
+
+    verify(release, timeout(1000)).accept("resource");
+    assertTrue(result.getCause() instanceof TimeoutException);
+  }
+
+  @Test
+  public void memoize(@Mock Producer<String> computation) {
+    when(computation.get()).thenReturn("hola");
+
+    IO<String> memoize = IO.task(computation).memoize();
+
+    assertAll(
+        () -> assertEquals("hola", memoize.unsafeRunSync()),
+        () -> assertEquals("hola", memoize.unsafeRunSync()));
+    verify(computation).get();
+  }
+
+  @Test
+  public void memoizeFailure(@Mock Producer<String> computation) {
+    when(computation.get())
+        .thenThrow(UnsupportedOperationException.class)
+        .thenReturn("hola");
+
+    IO<String> memoize = IO.task(computation).memoize();
+
+    assertAll(
+        () -> assertThrows(UnsupportedOperationException.class, memoize::unsafeRunSync),
+        () -> assertEquals("hola", memoize.unsafeRunSync()),
+        () -> assertEquals("hola", memoize.unsafeRunSync()));
+    verify(computation, times(2)).get();
+  }
+
+  @Test
+  public void memoizeSingleFlight() {
+    AtomicInteger executions = new AtomicInteger();
+    IO<Integer> memoize = IO.sleep(Duration.ofMillis(100))
+        .andThen(IO.task(executions::incrementAndGet)).memoize();
+
+    Sequence<Integer> result =
+        IO.parSequence(ImmutableList.from(Collections.nCopies(100, memoize))).unsafeRunSync();
+
+    assertAll(
+        () -> assertEquals(ImmutableList.from(Collections.nCopies(100, 1)), ImmutableList.from(result)),
+        () -> assertEquals(1, executions.get()));
+  }
+
+  @Test
+  public void cached() throws InterruptedException {
+    AtomicInteger executions = new AtomicInteger();
+    IO<Integer> cached = IO.task(executions::incrementAndGet).cached(Duration.ofMillis(500));
+
+    assertEquals(1, cached.unsafeRunSync());
+    assertEquals(1, cached.unsafeRunSync());
+    Thread.sleep(600);
+    assertEquals(1, cached.unsafeRunSync());
+    Thread.sleep(100);
+    assertEquals(2, cached.unsafeRunSync());
+    assertEquals(2, executions.get());
+  }
+
   @Test
   public void retry(@Mock Producer<String> computation) {
     when(computation.get()).thenThrow(UnsupportedOperationException.class);
@@ -191,6 +608,31 @@ public class IOTest {
     verify(computation, times(4)).get();
   }
 
+  @Test
+  public void retryPolicy(@Mock Producer<String> computation) {
+    when(computation.get())
+        .thenThrow(UnsupportedOperationException.class)
+        .thenThrow(UnsupportedOperationException.class)
+        .thenReturn("hola");
+
+    RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(10)).withFullJitter().withMaxRetries(3);
+    Try<String> retry = IO.task(computation).retry(policy).safeRunSync();
+
+    assertEquals("hola", retry.get());
+    verify(computation, times(3)).get();
+  }
+
+  @Test
+  public void retryPolicyNotMatching(@Mock Producer<String> computation) {
+    when(computation.get()).thenThrow(UnsupportedOperationException.class);
+
+    RetryPolicy policy = RetryPolicy.immediate().retryOn(error -> error instanceof SQLException);
+    Try<String> retry = IO.task(computation).retry(policy).safeRunSync();
+
+    assertTrue(retry.isFailure());
+    verify(computation).get();
+  }
+
   @Test
   public void repeatSuccess(@Mock Producer<String> computation) {
     when(computation.get()).thenReturn("hola");
@@ -232,6 +674,34 @@ public class IOTest {
     assertEquals("adios", io.unsafeRunSync());
   }
 
+  @Test
+  public void mapFusion() {
+    IO<Integer> io = IO.pure(0);
+    for (int i = 0; i < 100000; i++) {
+      io = io.map(x -> x + 1);
+    }
+
+    Future<Integer> future = IO.pure(1).map(x -> x + 1).map(x -> x * 2)
+        .foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK);
+
+    assertEquals(100000, io.unsafeRunSync());
+    assertEquals(Try.success(4), future.await());
+  }
+
+  @Test
+  public void mapNull() {
+    IO<String> single = IO.pure(1).map(x -> null);
+    IO<String> fused = IO.pure(1).map(x -> (String) null).map(String::toUpperCase);
+    AtomicInteger called = new AtomicInteger();
+    IO<Integer> afterNull = IO.pure(1).<String>map(x -> null).map(x -> called.incrementAndGet());
+
+    assertAll(
+        () -> assertThrows(NullPointerException.class, single::unsafeRunSync),
+        () -> assertThrows(NullPointerException.class, fused::unsafeRunSync),
+        () -> assertThrows(NullPointerException.class, afterNull::unsafeRunSync),
+        () -> assertEquals(0, called.get()));
+  }
+
   @Test
   public void stackSafety() {
     IO<Integer> sum = sum(100000, 0);
@@ -242,6 +712,51 @@ public class IOTest {
     assertEquals(Try.success(705082704), futureSum.await());
   }
 
+  @Test
+  public void foldMapStackSafety() {
+    IO<Integer> io = IO.pure(0);
+    for (int i = 0; i < 1000000; i++) {
+      io = io.flatMap(x -> IO.pure(x + 1));
+    }
+
+    Future<Integer> future = io.foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK);
+    ZIO<Nothing, Throwable, Integer> zio = io.foldMap(ZIOInstances.<Nothing>monadDefer()).fix1(ZIO::narrowK);
+
+    assertEquals(Try.success(1000000), future.await());
+    assertEquals(Either.right(1000000), zio.provide(nothing()));
+    assertEquals(Either.right(1000000), zio.provide(nothing()));
+  }
+
+  @Test
+  public void foldMapRightNested() {
+    Future<Integer> future = sum(1000000, 0).foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK);
+    ZIO<Nothing, Throwable, Integer> zio = sum(1000000, 0).foldMap(ZIOInstances.<Nothing>monadDefer()).fix1(ZIO::narrowK);
+
+    assertEquals(Try.success(1784293664), future.await());
+    assertEquals(Either.right(1784293664), zio.provide(nothing()));
+  }
+
+  @Test
+  public void foldMapAttempt() {
+    IO<Try<Integer>> io = IO.pure(1).<Integer>flatMap(x -> IO.raiseError(new UnsupportedOperationException()))
+        .map(x -> x + 1).attempt();
+
+    Future<Try<Integer>> future = io.foldMap(FutureInstances.monadDefer()).fix1(Future::narrowK);
+
+    assertTrue(future.await().get().getCause() instanceof UnsupportedOperationException);
+  }
+
+  @Test
+  public void stackSafetyLeftNested() {
+    IO<Integer> sum = IO.pure(0);
+    for (int i = 1; i <= 100000; i++) {
+      int n = i;
+      sum = sum.flatMap(acc -> IO.pure(acc + n));
+    }
+
+    assertEquals(705082704, sum.unsafeRunSync());
+  }
+
   @Test
   public void timed() {
     IO<Tuple2<Duration, Integer>> sum = sum(100000, 0).timed();
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.monad;
+
+import com.github.tonivade.purefun.type.Option;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+
+  private final Throwable error = new IOException();
+
+  @Test
+  public void constant() {
+    RetryPolicy policy = RetryPolicy.constant(Duration.ofMillis(100)).withMaxRetries(2);
+
+    assertAll(
+        () -> assertEquals(Option.some(Duration.ofMillis(100)), policy.nextDelay(error, 0, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.some(Duration.ofMillis(100)), policy.nextDelay(error, 1, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.none(), policy.nextDelay(error, 2, Duration.ZERO, Duration.ZERO)));
+  }
+
+  @Test
+  public void exponential() {
+    RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(100)).withMaxDelay(Duration.ofMillis(500));
+
+    assertAll(
+        () -> assertEquals(Option.some(Duration.ofMillis(100)), policy.nextDelay(error, 0, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.some(Duration.ofMillis(200)), policy.nextDelay(error, 1, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.some(Duration.ofMillis(400)), policy.nextDelay(error, 2, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.some(Duration.ofMillis(500)), policy.nextDelay(error, 3, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.some(Duration.ofMillis(500)), policy.nextDelay(error, 1000, Duration.ZERO, Duration.ZERO)));
+  }
+
+  @Test
+  public void maxElapsedTime() {
+    RetryPolicy policy = RetryPolicy.constant(Duration.ofMillis(100)).withMaxElapsedTime(Duration.ofSeconds(1));
+
+    assertAll(
+        () -> assertEquals(Option.some(Duration.ofMillis(100)), policy.nextDelay(error, 5, Duration.ZERO, Duration.ofMillis(900))),
+        () -> assertEquals(Option.none(), policy.nextDelay(error, 5, Duration.ZERO, Duration.ofMillis(901))));
+  }
+
+  @Test
+  public void retryOn() {
+    RetryPolicy policy = RetryPolicy.immediate().retryOn(e -> e instanceof IOException);
+
+    assertAll(
+        () -> assertEquals(Option.some(Duration.ZERO), policy.nextDelay(error, 0, Duration.ZERO, Duration.ZERO)),
+        () -> assertEquals(Option.none(), policy.nextDelay(new IllegalStateException(), 0, Duration.ZERO, Duration.ZERO)));
+  }
+
+  @Test
+  public void fullJitter() {
+    RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(100)).withFullJitter();
+
+    for (int i = 0; i < 1000; i++) {
+      long delay = policy.nextDelay(error, 2, Duration.ZERO, Duration.ZERO).get().toMillis();
+      assertTrue(delay >= 0 && delay <= 400);
+    }
+  }
+
+  @Test
+  public void decorrelatedJitter() {
+    RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(100))
+        .withMaxDelay(Duration.ofSeconds(1)).withDecorrelatedJitter();
+
+    Duration previous = Duration.ZERO;
+    for (int i = 0; i < 1000; i++) {
+      Duration delay = policy.nextDelay(error, i, previous, Duration.ZERO).get();
+      long upper = Math.min(Duration.ofSeconds(1).toNanos(), Math.max(Duration.ofMillis(100).toNanos(), previous.toNanos() * 3));
+      long nanos = delay.toNanos();
+      assertTrue(nanos >= Duration.ofMillis(100).toNanos() && nanos <= upper);
+      previous = delay;
+    }
+  }
+}